@@ -0,0 +1,244 @@
+// Programmer: Jurrien Julianda / Student ID: 25-0909-131
+// File: ClassGrading.java
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/*
+ * Grades a whole class from the roster CSV with the Prelim Lab Calculator's formula:
+ *
+ *   Class Standing = Attendance x 0.40 + Lab Average x 0.60
+ *   Prelim Grade   = Prelim Exam x 0.30 + Class Standing x 0.70
+ *   Required Exam  = (75 - Class Standing x 0.70) / 0.30       (score needed to pass)
+ *
+ *   java ClassGrading [MOCK_DATA.csv] [graded.csv]
+ *
+ * Columns are found by their header names (LAB WORK 1-3, PRELIM EXAM, ATTENDANCE
+ * GRADE). The file is cut into chunks at line boundaries and the chunks are parsed,
+ * graded and formatted on a ForkJoinPool, each into its own columns and output
+ * bytes. As with ParallelCsvLoader, at most two chunks per thread are in flight and
+ * each is written, in file order, as soon as it and the ones before it are done, so
+ * memory does not grow with the roster. Rows missing one of the scores
+ * are written as INCOMPLETE. Prints how many students fall in each grade band.
+ */
+public class ClassGrading {
+
+    static final String[] SCORE_COLUMNS = {"LAB WORK 1", "LAB WORK 2", "LAB WORK 3", "PRELIM EXAM", "ATTENDANCE GRADE"};
+    static final double PASSING = 75.0;
+    // Lower edges of the grade bands, highest first; the last band is everything below PASSING
+    static final double[] BAND_FLOOR = {90, 85, 80, 75};
+    static final String[] BAND_NAME = {"90 - 100", "85 - 89.99", "80 - 84.99", "75 - 79.99", "Below 75 (fail)"};
+
+    private static final long CHUNK_SIZE = 4L * 1024 * 1024;
+    private static final byte[] OUTPUT_HEADER = ("StudentID,Name,Lab Average,Attendance,Class Standing,"
+            + "Prelim Exam,Prelim Grade,Required Exam,Status\n").getBytes(StandardCharsets.US_ASCII);
+
+    /** What one chunk (or, merged, the whole file) came to. */
+    static final class Totals {
+        long rows, incomplete;
+        final long[] bands = new long[BAND_NAME.length];
+        byte[] output;
+
+        void add(Totals t) {
+            rows += t.rows;
+            incomplete += t.incomplete;
+            for (int b = 0; b < bands.length; b++) bands[b] += t.bands[b];
+        }
+    }
+
+    private ClassGrading() {}
+
+    public static void main(String[] args) {
+        File in = new File(args.length > 0 ? args[0] : "MOCK_DATA.csv");
+        File out = new File(args.length > 1 ? args[1] : in.getName().replaceFirst("(\\.csv)?$", "_graded.csv"));
+        try {
+            long start = System.nanoTime();
+            Totals t = grade(in, out);
+            double secs = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Graded %d students from %s in %.2f s -> %s%n", t.rows - t.incomplete, in.getName(), secs, out.getName());
+            for (int b = 0; b < BAND_NAME.length; b++) System.out.printf("  %-16s %d%n", BAND_NAME[b], t.bands[b]);
+            if (t.incomplete > 0) System.out.printf("  %-16s %d%n", "Incomplete", t.incomplete);
+        } catch (IOException | UncheckedIOException ex) {
+            System.err.println("Grading failed: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Grades every row of the roster into out. Returns the counts. */
+    public static Totals grade(File in, File out) throws IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel ch = FileChannel.open(in.toPath(), StandardOpenOption.READ);
+             OutputStream os = new FileOutputStream(out)) {
+            long size = ch.size();
+            int[] columns = scoreColumns(ch, in);
+            os.write(OUTPUT_HEADER);
+
+            // Keep a bounded number of chunks in flight and write each one as it comes due
+            ArrayDeque<ForkJoinTask<Totals>> inFlight = new ArrayDeque<>();
+            int maxInFlight = parallelism * 2;
+            Totals total = new Totals();
+            long start = 0;
+            while (start < size || !inFlight.isEmpty()) {
+                while (start < size && inFlight.size() < maxInFlight) {
+                    long from = start, end = ParallelCsvLoader.nextBoundary(ch, Math.min(size, start + CHUNK_SIZE), size);
+                    inFlight.add(pool.submit(() -> gradeChunk(ch, from, end, columns)));
+                    start = end;
+                }
+                Totals p = inFlight.poll().join();
+                os.write(p.output);
+                p.output = null;
+                total.add(p);
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Field index of each SCORE_COLUMNS entry, from the header line
+    private static int[] scoreColumns(FileChannel ch, File in) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(ch.size(), 64 * 1024));
+        ch.read(head, 0);
+        String text = new String(head.array(), 0, head.position(), StandardCharsets.UTF_8);
+        int nl = text.indexOf('\n');
+        String[] header = (nl >= 0 ? text.substring(0, nl) : text).split(",", -1);
+        int[] columns = new int[SCORE_COLUMNS.length];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = -1;
+            for (int f = 0; f < header.length; f++) {
+                if (header[f].replace("\"", "").trim().equalsIgnoreCase(SCORE_COLUMNS[c])) columns[c] = f;
+            }
+            if (columns[c] < 0) throw new IOException(in.getName() + " has no \"" + SCORE_COLUMNS[c] + "\" column");
+        }
+        return columns;
+    }
+
+    // Parses, grades and formats one chunk [start, end); only its own columns are touched
+    private static Totals gradeChunk(FileChannel ch, long start, long end, int[] columns) {
+        MappedByteBuffer buf;
+        try {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        ChunkColumns c = new ChunkColumns(columns, (int) ((end - start) / 40) + 16);
+        new StudentCsvReader().parse(buf, 0, (int) (end - start), start == 0, c);
+
+        Totals t = new Totals();
+        t.rows = c.size;
+        StringBuilder out = new StringBuilder(c.size * 80);
+        for (int i = 0; i < c.size; i++) {
+            double lab = (c.lab1[i] + c.lab2[i] + c.lab3[i]) / 3.0;
+            double standing = c.attendance[i] * 0.40 + lab * 0.60;
+            double prelim = c.exam[i] * 0.30 + standing * 0.70;
+            double required = (PASSING - standing * 0.70) / 0.30;
+            out.append(StudentCsvReader.quote(c.ids[i])).append(',').append(StudentCsvReader.quote(c.names[i])).append(',');
+            if (Double.isNaN(prelim)) {
+                t.incomplete++;
+                out.append(",,,,,,INCOMPLETE\n");
+                continue;
+            }
+            t.bands[band(prelim)]++;
+            fixed2(out, lab).append(',');
+            fixed2(out, c.attendance[i]).append(',');
+            fixed2(out, standing).append(',');
+            fixed2(out, c.exam[i]).append(',');
+            fixed2(out, prelim).append(',');
+            // shown the way the calculator shows it
+            if (required <= 0) out.append("0.00");
+            else if (required > 100) out.append(">100");
+            else fixed2(out, required);
+            out.append(prelim >= PASSING ? ",PASS\n" : ",FAIL\n");
+        }
+        t.output = out.toString().getBytes(StandardCharsets.UTF_8);
+        return t;
+    }
+
+    static int band(double prelim) {
+        for (int b = 0; b < BAND_FLOOR.length; b++) if (prelim >= BAND_FLOOR[b]) return b;
+        return BAND_FLOOR.length;
+    }
+
+    /*
+     * Two decimals, rounded half-even on v's exact binary value like the calculator's
+     * DecimalFormat("#0.00") (so 0.005 -> 0.01, 2.675 -> 2.67); the same arithmetic as
+     * GradeReport.fixed2. The sign of one fused multiply-add says which side of the
+     * halfway point v * 100 is on.
+     */
+    static StringBuilder fixed2(StringBuilder sb, double v) {
+        if (Double.doubleToRawLongBits(v) < 0) {
+            sb.append('-');
+            v = -v;
+        }
+        double cents = Math.floor(v * 100);
+        double past = Math.fma(v, 100, -(cents + 0.5));
+        if (past > 0 || (past == 0 && ((long) cents & 1) != 0)) cents += 1;
+        long c = (long) cents;
+        sb.append(c / 100).append('.');
+        if (c % 100 < 10) sb.append('0');
+        return sb.append(c % 100);
+    }
+
+    // One chunk's rows as columns: the scores the formula needs, plus ID and name
+    private static final class ChunkColumns implements StudentCsvReader.ScoreHandler {
+        private final int[] columns;
+        String[] ids, names;
+        double[] lab1, lab2, lab3, exam, attendance;
+        int size;
+
+        ChunkColumns(int[] columns, int capacity) {
+            this.columns = columns;
+            ids = new String[capacity];
+            names = new String[capacity];
+            lab1 = new double[capacity];
+            lab2 = new double[capacity];
+            lab3 = new double[capacity];
+            exam = new double[capacity];
+            attendance = new double[capacity];
+        }
+
+        @Override
+        public void fields(double[] numbers, int count) {
+            if (size == ids.length) grow();
+            lab1[size] = value(numbers, count, columns[0]);
+            lab2[size] = value(numbers, count, columns[1]);
+            lab3[size] = value(numbers, count, columns[2]);
+            exam[size] = value(numbers, count, columns[3]);
+            attendance[size] = value(numbers, count, columns[4]);
+        }
+
+        @Override
+        public void row(String id, String name, double grade) {
+            ids[size] = id;
+            names[size] = name;
+            size++;
+        }
+
+        private static double value(double[] numbers, int count, int f) {
+            return f < count ? numbers[f] : Double.NaN;
+        }
+
+        private void grow() {
+            int n = ids.length * 2;
+            ids = java.util.Arrays.copyOf(ids, n);
+            names = java.util.Arrays.copyOf(names, n);
+            lab1 = java.util.Arrays.copyOf(lab1, n);
+            lab2 = java.util.Arrays.copyOf(lab2, n);
+            lab3 = java.util.Arrays.copyOf(lab3, n);
+            exam = java.util.Arrays.copyOf(exam, n);
+            attendance = java.util.Arrays.copyOf(attendance, n);
+        }
+    }
+}
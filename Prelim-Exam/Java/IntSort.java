@@ -0,0 +1,43 @@
+// Programmer: Jurrien Julianda / Student ID: 25-0909-131
+// File: IntSort.java
+
+/*
+ * Stable merge sort for int arrays with a custom comparator, used to order row
+ * numbers by a column without boxing them into Integer objects.
+ */
+public final class IntSort {
+
+    public interface IntComparator {
+        int compare(int a, int b);
+    }
+
+    private static final int INSERTION_LIMIT = 24;
+
+    private IntSort() {}
+
+    public static void sort(int[] a, int from, int to, IntComparator cmp) {
+        if (to - from < 2) return;
+        int[] tmp = new int[to - from];
+        mergeSort(a, tmp, from, to, cmp);
+    }
+
+    private static void mergeSort(int[] a, int[] tmp, int from, int to, IntComparator cmp) {
+        if (to - from <= INSERTION_LIMIT) {
+            for (int i = from + 1; i < to; i++) {
+                int v = a[i];
+                int j = i - 1;
+                while (j >= from && cmp.compare(a[j], v) > 0) { a[j + 1] = a[j]; j--; }
+                a[j + 1] = v;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid, cmp);
+        mergeSort(a, tmp, mid, to, cmp);
+        if (cmp.compare(a[mid - 1], a[mid]) <= 0) return; // already in order
+        System.arraycopy(a, from, tmp, 0, mid - from);
+        int i = 0, iEnd = mid - from, j = mid, k = from;
+        while (i < iEnd && j < to) a[k++] = cmp.compare(a[j], tmp[i]) < 0 ? a[j++] : tmp[i++];
+        while (i < iEnd) a[k++] = tmp[i++];
+    }
+}
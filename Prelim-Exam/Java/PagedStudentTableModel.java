@@ -0,0 +1,231 @@
+// Programmer: Jurrien Julianda / Student ID: 25-0909-131
+// File: PagedStudentTableModel.java
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/*
+ * Read-only table model for rosters too big to load into memory.
+ *
+ * Opening the file only records the byte offset of every PAGE_ROWS-th row (one long
+ * per page). Rows are parsed a page at a time when the table needs them and kept in
+ * an LRU cache bounded by a memory budget (-Dstudentrecords.pageCacheMB, default 64).
+ * A page that is not cached yet shows as "..." and is read on a background thread;
+ * the rows repaint once it arrives. Call prefetch() with the visible rows so pages
+ * just outside the viewport are ready before they are scrolled in.
+ *
+ * Rows and their order are exactly what StudentCsvReader reports for the whole file.
+ * All methods except buildIndex() must be called on the EDT.
+ */
+public class PagedStudentTableModel extends AbstractTableModel {
+
+    static final int PAGE_ROWS = 256;
+
+    private static final String[] COLUMNS = {"ID", "Name", "Grade"};
+    private static final String PENDING = "...";
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    // Rough heap cost of a page beyond its arrays
+    private static final int PAGE_OVERHEAD = 256;
+
+    private final File file;
+    private final FileChannel channel;
+    private final long budgetBytes;
+
+    // Published by buildIndex on the EDT: page p spans pageOffset[p] to pageOffset[p + 1]
+    private long[] pageOffset = {0};
+    private int pageCount;
+    private int rowCount;
+
+    private final LinkedHashMap<Integer, StudentTableModel.Columns> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+    private final Set<Integer> loading = new HashSet<>();
+    private final ExecutorService reader = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "student-page-reader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PagedStudentTableModel(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.budgetBytes = Long.getLong("studentrecords.pageCacheMB", 64) * 1024 * 1024;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public int getRowCount() { return rowCount; }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int column) { return COLUMNS[column]; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int page = row / PAGE_ROWS;
+        StudentTableModel.Columns rows = cache.get(page);
+        if (rows == null) {
+            request(page);
+            return PENDING;
+        }
+        int r = row - page * PAGE_ROWS;
+        if (r >= rows.size()) return "";
+        switch (column) {
+            case 0: return rows.id(r);
+            case 1: return rows.name(r);
+            default: return StudentTableModel.formatGrade(rows.grade(r));
+        }
+    }
+
+    /** Starts reading the pages holding rows [first, last] and the same span on each side. */
+    public void prefetch(int first, int last) {
+        if (rowCount == 0) return;
+        int span = Math.max(PAGE_ROWS, last - first + 1);
+        int from = Math.max(0, first - span) / PAGE_ROWS;
+        int to = Math.min(rowCount - 1, last + span) / PAGE_ROWS;
+        // visible pages first
+        for (int p = first / PAGE_ROWS; p <= Math.min(to, last / PAGE_ROWS); p++) request(p);
+        for (int p = from; p <= to; p++) request(p);
+    }
+
+    public void close() {
+        reader.shutdownNow();
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+    }
+
+    /**
+     * Scans the file once for row boundaries. Runs on the calling (background) thread and
+     * publishes rows to the table as whole pages are found. Returns the number of rows.
+     */
+    public int buildIndex(BooleanSupplier cancelled, IntConsumer percent) throws IOException {
+        long size = channel.size();
+        long[] offsets = new long[1024];
+        int pages = 0;
+        long rows = 0;
+        boolean firstLine = true;
+        long pos = 0;
+        while (pos < size) {
+            if (cancelled.getAsBoolean()) return (int) rows;
+            long len = Math.min(WINDOW_SIZE, size - pos);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+            int end = (int) len;
+            if (pos + len < size) {
+                end = StudentCsvReader.lastNewline(buf, end) + 1;
+                if (end == 0) throw new IOException("Line longer than " + WINDOW_SIZE + " bytes at offset " + pos);
+            }
+            int i = 0;
+            if (firstLine && end >= 3 && (buf.get(0) & 0xFF) == 0xEF
+                    && (buf.get(1) & 0xFF) == 0xBB && (buf.get(2) & 0xFF) == 0xBF) {
+                i = 3;
+            }
+            while (i < end) {
+                int nl = i;
+                while (nl < end && buf.get(nl) != '\n') nl++;
+                boolean isRow = firstLine ? !StudentCsvReader.isHeader(buf, i, nl) : !StudentCsvReader.isBlank(buf, i, nl);
+                firstLine = false;
+                if (isRow) {
+                    if (rows % PAGE_ROWS == 0) {
+                        if (pages == offsets.length) offsets = Arrays.copyOf(offsets, pages * 2);
+                        offsets[pages++] = pos + i;
+                    }
+                    if (++rows > Integer.MAX_VALUE) throw new IOException("Too many rows for one table");
+                }
+                i = nl + 1;
+            }
+            pos += end;
+            if (pos < size) {
+                // only complete pages until the end of the file
+                int complete = (int) (rows / PAGE_ROWS);
+                publish(offsets, complete, complete < pages ? offsets[complete] : pos, complete * PAGE_ROWS);
+            } else {
+                publish(offsets, pages, size, (int) rows);
+            }
+            percent.accept((int) (pos * 100 / Math.max(1, size)));
+        }
+        return (int) rows;
+    }
+
+    private void publish(long[] offsets, int pages, long end, int rows) {
+        long[] published = Arrays.copyOf(offsets, pages + 1);
+        published[pages] = end;
+        SwingUtilities.invokeLater(() -> {
+            pageOffset = published;
+            pageCount = pages;
+            int old = rowCount;
+            if (rows > old) {
+                rowCount = rows;
+                fireTableRowsInserted(old, rows - 1);
+            }
+        });
+    }
+
+    private void request(int page) {
+        if (page >= pageCount || cache.containsKey(page) || !loading.add(page)) return;
+        long start = pageOffset[page];
+        long end = pageOffset[page + 1];
+        reader.execute(() -> {
+            StudentTableModel.Columns rows = null;
+            try {
+                rows = readPage(start, end);
+            } catch (IOException ex) {
+                System.err.println("Could not read rows at offset " + start + " of " + file + ": " + ex.getMessage());
+            }
+            StudentTableModel.Columns result = rows;
+            SwingUtilities.invokeLater(() -> pageLoaded(page, result));
+        });
+    }
+
+    private StudentTableModel.Columns readPage(long start, long end) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) (end - start));
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, start + buf.position()) < 0) break;
+        }
+        StudentTableModel.Columns rows = new StudentTableModel.Columns(PAGE_ROWS);
+        new StudentCsvReader().parse(buf, 0, buf.position(), false,
+                (id, name, grade) -> rows.add(id, name, (float) grade));
+        return rows;
+    }
+
+    private void pageLoaded(int page, StudentTableModel.Columns rows) {
+        loading.remove(page);
+        if (rows == null) return;
+        cache.put(page, rows);
+        cachedBytes += cost(rows);
+        // evict least recently used pages, always keeping the one just read
+        java.util.Iterator<Map.Entry<Integer, StudentTableModel.Columns>> it = cache.entrySet().iterator();
+        while (cachedBytes > budgetBytes && it.hasNext()) {
+            Map.Entry<Integer, StudentTableModel.Columns> e = it.next();
+            if (e.getKey() == page) continue;
+            cachedBytes -= cost(e.getValue());
+            it.remove();
+        }
+        int first = page * PAGE_ROWS;
+        int last = Math.min(rowCount, first + PAGE_ROWS) - 1;
+        if (last >= first) fireTableRowsUpdated(first, last);
+    }
+
+    private static long cost(StudentTableModel.Columns rows) {
+        return (long) rows.idValue.length * 21 + (long) rows.text.length * 2 + PAGE_OVERHEAD;
+    }
+}
@@ -0,0 +1,126 @@
+// Programmer: Jurrien Julianda / Student ID: 25-0909-131
+// File: ParallelCsvLoader.java
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BooleanSupplier;
+
+/*
+ * Parallel loader for large student CSV files.
+ *
+ * The file is cut into chunks at line boundaries, every chunk is mapped and parsed
+ * by its own StudentCsvReader on a ForkJoinPool, and the parsed chunks are handed
+ * to the consumer strictly in file order. Only the chunk starting at offset 0 is
+ * checked for the header, so the column rules are exactly the sequential ones.
+ */
+public class ParallelCsvLoader {
+
+    private static final long MIN_CHUNK = 4L * 1024 * 1024;
+    private static final long MAX_CHUNK = 64L * 1024 * 1024;
+
+    public interface ChunkSink {
+        /** Receives the rows of one chunk; end is the file offset just past the chunk. */
+        void chunk(StudentTableModel.Columns rows, long end, long size);
+    }
+
+    private final int parallelism;
+
+    public ParallelCsvLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelCsvLoader(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Parses the file and passes each chunk's rows to the sink, in file order.
+     * Stops early (without error) once cancelled returns true. Returns the row count.
+     */
+    public long load(File file, ChunkSink sink, BooleanSupplier cancelled) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            long chunkSize = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, size / (parallelism * 4L) + 1));
+
+            // Keep a bounded number of chunks in flight so memory stays proportional to the pool
+            ArrayDeque<ChunkTask> chunks = new ArrayDeque<>();
+            ArrayDeque<ForkJoinTask<StudentTableModel.Columns>> inFlight = new ArrayDeque<>();
+            int maxInFlight = parallelism * 2;
+            long rows = 0;
+            long start = 0;
+            while (start < size || !inFlight.isEmpty()) {
+                while (start < size && inFlight.size() < maxInFlight) {
+                    long end = nextBoundary(ch, start + chunkSize, size);
+                    ChunkTask task = new ChunkTask(ch, start, end);
+                    chunks.add(task);
+                    inFlight.add(pool.submit(task));
+                    start = end;
+                }
+                if (cancelled.getAsBoolean()) {
+                    for (ForkJoinTask<?> t : inFlight) t.cancel(false);
+                    break;
+                }
+                StudentTableModel.Columns chunk = join(inFlight.poll());
+                rows += chunk.size();
+                sink.chunk(chunk, chunks.poll().end, size);
+            }
+            return rows;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static StudentTableModel.Columns join(ForkJoinTask<StudentTableModel.Columns> task) throws IOException {
+        try {
+            return task.join();
+        } catch (RuntimeException ex) {
+            if (ex.getCause() instanceof IOException) throw (IOException) ex.getCause();
+            throw ex;
+        }
+    }
+
+    // Offset just after the first newline at or after pos (or the file size)
+    static long nextBoundary(FileChannel ch, long pos, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(64 * 1024);
+        while (pos < size) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    // Maps and parses one chunk [start, end) into its own column block
+    private static final class ChunkTask implements java.util.concurrent.Callable<StudentTableModel.Columns> {
+        private final FileChannel ch;
+        private final long start;
+        private final long end;
+
+        ChunkTask(FileChannel ch, long start, long end) {
+            this.ch = ch;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public StudentTableModel.Columns call() throws IOException {
+            int len = (int) (end - start);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, start, len);
+            StudentTableModel.Columns out = new StudentTableModel.Columns(len / 40);
+            new StudentCsvReader().parse(buf, 0, len, start == 0, (id, name, grade) -> out.add(id, name, (float) grade));
+            return out;
+        }
+    }
+}
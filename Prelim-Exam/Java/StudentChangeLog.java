@@ -0,0 +1,394 @@
+// Programmer: Jurrien Julianda / Student ID: 25-0909-131
+// File: StudentChangeLog.java
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/*
+ * Append-only change log (write-ahead log) for the student records.
+ *
+ * Every Add / Delete is appended as a small checksummed record. A single writer
+ * thread owns the FileChannel: it drains whatever changes are queued, writes them
+ * with one call and forces them to disk with one fsync (group commit), then
+ * completes each change's future.
+ *
+ * Files live next to the CSV, numbered by generation:
+ *   MOCK_DATA.csv.snap.<g>  CSV snapshot holding every change made before log g
+ *   MOCK_DATA.csv.log.<g>   changes made after that snapshot
+ * Startup state = newest snapshot (or the CSV itself) + replay of logs >= its generation.
+ * Compaction rotates to a new log generation, writes the next snapshot in the
+ * background and then deletes the files it replaces.
+ */
+public class StudentChangeLog {
+
+    public static final byte OP_ADD = 1;
+    public static final byte OP_DELETE = 2;
+
+    private static final long DEFAULT_COMPACT_BYTES = 4L * 1024 * 1024;
+
+    /** One logged change. */
+    public static final class Op {
+        public final byte type;
+        public final String id;
+        public final String name;
+        public final float grade;
+
+        Op(byte type, String id, String name, float grade) {
+            this.type = type;
+            this.id = id;
+            this.name = name;
+            this.grade = grade;
+        }
+    }
+
+    // Entries of the writer queue: a change to write, or a request to start a new log file
+    private static final class Entry {
+        final Op op;
+        final int rotateTo;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Entry(Op op, int rotateTo) {
+            this.op = op;
+            this.rotateTo = rotateTo;
+        }
+    }
+
+    private final File csv;
+    private final File dir;
+    private final int snapshotGeneration;
+    private final long compactBytes;
+    private final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+
+    private int generation;
+    private volatile long logBytes;
+    private volatile boolean compacting;
+    private volatile boolean closed;
+    private Thread writer;
+
+    // Writer-thread state
+    private FileChannel channel;
+    private ByteBuffer out = ByteBuffer.allocateDirect(64 * 1024);
+
+    private StudentChangeLog(File csv, int snapshotGeneration, int generation) {
+        this.csv = csv;
+        this.dir = csv.getAbsoluteFile().getParentFile();
+        this.snapshotGeneration = snapshotGeneration;
+        this.generation = generation;
+        this.compactBytes = Long.getLong("studentrecords.logCompactBytes", DEFAULT_COMPACT_BYTES);
+    }
+
+    /** Finds the newest snapshot and the logs that belong to the given CSV. */
+    public static StudentChangeLog open(File csv) {
+        int snap = newest(csv, ".snap.");
+        int log = Math.max(snap, newest(csv, ".log."));
+        return new StudentChangeLog(csv, snap, log);
+    }
+
+    /** File the rows should be loaded from before the log is replayed. */
+    public File baseFile() {
+        return snapshotGeneration > 0 ? file(".snap.", snapshotGeneration) : csv;
+    }
+
+    /** Reads every valid change of the logs that follow the base file, in order. */
+    public List<Op> readLog() throws IOException {
+        List<Op> ops = new ArrayList<>();
+        for (int g = snapshotGeneration; g <= generation; g++) {
+            File f = file(".log.", g);
+            if (f.isFile()) readLogFile(f, ops);
+        }
+        return ops;
+    }
+
+    /** Opens the current log for appending and starts the writer thread. */
+    public void start() throws IOException {
+        channel = openForAppend(file(".log.", generation));
+        logBytes = channel.size();
+        writer = new Thread(this::writeLoop, "student-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public CompletableFuture<Void> logAdd(String id, String name, float grade) {
+        return submit(new Entry(new Op(OP_ADD, id, name, grade), 0));
+    }
+
+    public CompletableFuture<Void> logDelete(String id, String name) {
+        return submit(new Entry(new Op(OP_DELETE, id, name, Float.NaN), 0));
+    }
+
+    /** True once the current log has grown past the compaction threshold. */
+    public boolean needsCompaction() {
+        return !compacting && logBytes >= compactBytes;
+    }
+
+    /**
+     * Folds the log into a new snapshot. rows must be a copy of the model taken
+     * after the last logged change and before the next one (i.e. on the EDT).
+     */
+    public void compact(StudentTableModel.Columns rows) {
+        if (compacting || closed) return;
+        compacting = true;
+        int next = ++generation;
+        CompletableFuture<Void> rotated = submit(new Entry(null, next));
+        Thread t = new Thread(() -> {
+            try {
+                writeSnapshot(rows, file(".snap.", next));
+                rotated.join();
+                for (File f : listFiles()) {
+                    int g = generationOf(f);
+                    if (g >= 0 && g < next) Files.deleteIfExists(f.toPath());
+                }
+            } catch (Exception ex) {
+                System.err.println("Change log compaction failed: " + ex.getMessage());
+            } finally {
+                compacting = false;
+            }
+        }, "student-log-compactor");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Writes out everything queued so far and closes the log. */
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (writer == null) return;
+        Entry last = new Entry(null, -1);
+        queue.add(last);
+        try {
+            last.done.get();
+            writer.join(2000);
+        } catch (Exception ignored) {}
+    }
+
+    private CompletableFuture<Void> submit(Entry e) {
+        if (writer == null || (closed && e.rotateTo >= 0)) {
+            e.done.completeExceptionally(new IOException("change log is not open"));
+            return e.done;
+        }
+        queue.add(e);
+        return e.done;
+    }
+
+    // ---- writer thread ----
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                boolean stop = writeBatch(batch);
+                if (stop) return;
+            } catch (InterruptedException ie) {
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Writes and forces all changes of the batch; returns true when the log was closed
+    private boolean writeBatch(List<Entry> batch) {
+        List<Entry> pending = new ArrayList<>();
+        try {
+            for (Entry e : batch) {
+                if (e.op != null) {
+                    encode(e.op);
+                    pending.add(e);
+                    continue;
+                }
+                // rotation or close: everything before it must be durable first
+                flush(pending);
+                if (e.rotateTo < 0) {
+                    channel.close();
+                    e.done.complete(null);
+                    return true;
+                }
+                channel.close();
+                channel = openForAppend(file(".log.", e.rotateTo));
+                logBytes = 0;
+                e.done.complete(null);
+            }
+            flush(pending);
+        } catch (IOException ex) {
+            for (Entry e : batch) e.done.completeExceptionally(ex);
+            out.clear();
+        }
+        return false;
+    }
+
+    // On failure, cuts off whatever part of the batch reached the file, so the records
+    // acknowledged after it are not stranded behind a torn one that replay stops at
+    private void flush(List<Entry> pending) throws IOException {
+        if (pending.isEmpty()) return;
+        long start = channel.position();
+        out.flip();
+        try {
+            while (out.hasRemaining()) channel.write(out);
+            channel.force(false);
+        } catch (IOException ex) {
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException ignored) {}
+            throw ex;
+        } finally {
+            out.clear();
+        }
+        logBytes = channel.size();
+        for (Entry e : pending) e.done.complete(null);
+        pending.clear();
+    }
+
+    // Record: [int body length][int crc32 of body][byte op][id][name][float grade]
+    private void encode(Op op) {
+        byte[] id = op.id.getBytes(StandardCharsets.UTF_8);
+        byte[] name = op.name.getBytes(StandardCharsets.UTF_8);
+        int body = 1 + 4 + id.length + 4 + name.length + 4;
+        if (out.remaining() < body + 8) {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(out.capacity() * 2, out.position() + body + 8));
+            out.flip();
+            bigger.put(out);
+            out = bigger;
+        }
+        int start = out.position();
+        out.putInt(body).putInt(0);
+        out.put(op.type);
+        out.putInt(id.length).put(id);
+        out.putInt(name.length).put(name);
+        out.putFloat(op.grade);
+        CRC32 crc = new CRC32();
+        ByteBuffer bodyView = out.duplicate();
+        bodyView.position(start + 8).limit(start + 8 + body);
+        crc.update(bodyView);
+        out.putInt(start + 4, (int) crc.getValue());
+    }
+
+    // ---- reading ----
+
+    // Appends the valid records of f to ops; a torn or corrupt tail ends the file
+    private static long readLogFile(File f, List<Op> ops) throws IOException {
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) return 0;
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            int pos = 0;
+            while (pos + 8 <= size) {
+                int body = buf.getInt(pos);
+                int sum = buf.getInt(pos + 4);
+                if (body < 13 || pos + 8L + body > size) break;
+                ByteBuffer view = buf.duplicate();
+                view.position(pos + 8).limit(pos + 8 + body);
+                crc.reset();
+                crc.update(view);
+                if ((int) crc.getValue() != sum) break;
+
+                int p = pos + 8;
+                byte type = buf.get(p++);
+                int idLen = buf.getInt(p); p += 4;
+                String id = utf8(buf, p, idLen); p += idLen;
+                int nameLen = buf.getInt(p); p += 4;
+                String name = utf8(buf, p, nameLen); p += nameLen;
+                float grade = buf.getFloat(p);
+                ops.add(new Op(type, id, name, grade));
+                pos += 8 + body;
+            }
+            return pos;
+        }
+    }
+
+    private static String utf8(ByteBuffer buf, int pos, int len) {
+        byte[] b = new byte[len];
+        ByteBuffer view = buf.duplicate();
+        view.position(pos);
+        view.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    // Opens a log for appending, cutting off any torn record left by a crash
+    private static FileChannel openForAppend(File f) throws IOException {
+        long valid = f.isFile() ? readLogFile(f, new ArrayList<>()) : 0;
+        FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        ch.truncate(valid);
+        ch.position(valid);
+        return ch;
+    }
+
+    // ---- snapshots ----
+
+    private static void writeSnapshot(StudentTableModel.Columns rows, File target) throws IOException {
+        File tmp = new File(target.getPath() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BufferedWriter w = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(ch), StandardCharsets.UTF_8), 1 << 16);
+            w.write("StudentID,Name,Grade\n");
+            for (int r = 0; r < rows.size(); r++) {
+                w.write(StudentCsvReader.quote(rows.id(r)));
+                w.write(',');
+                w.write(StudentCsvReader.quote(rows.name(r)));
+                float g = rows.grade(r);
+                if (!Float.isNaN(g)) {
+                    w.write(',');
+                    w.write(StudentTableModel.formatGrade(g));
+                }
+                w.write('\n');
+            }
+            w.flush();
+            ch.force(true);
+        }
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ---- file naming ----
+
+    private File file(String kind, int g) {
+        return new File(dir, csv.getName() + kind + g);
+    }
+
+    private File[] listFiles() {
+        File[] files = dir.listFiles((d, n) -> n.startsWith(csv.getName() + ".snap.") || n.startsWith(csv.getName() + ".log."));
+        return files != null ? files : new File[0];
+    }
+
+    private int generationOf(File f) {
+        String n = f.getName();
+        if (n.endsWith(StudentSnapshotCache.SUFFIX)) n = n.substring(0, n.length() - StudentSnapshotCache.SUFFIX.length());
+        int dot = n.lastIndexOf('.');
+        try {
+            return Integer.parseInt(n.substring(dot + 1));
+        } catch (NumberFormatException ex) {
+            return -1; // e.g. a leftover .tmp file
+        }
+    }
+
+    private static int newest(File csv, String kind) {
+        File dir = csv.getAbsoluteFile().getParentFile();
+        String prefix = csv.getName() + kind;
+        String[] names = dir.list((d, n) -> n.startsWith(prefix));
+        TreeMap<Integer, String> found = new TreeMap<>();
+        if (names != null) {
+            for (String n : names) {
+                try { found.put(Integer.parseInt(n.substring(prefix.length())), n); } catch (NumberFormatException ignored) {}
+            }
+        }
+        return found.isEmpty() ? 0 : found.lastKey();
+    }
+}
@@ -0,0 +1,408 @@
+// Programmer: Jurrien Julianda / Student ID: 25-0909-131
+// File: StudentCsvReader.java
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Byte-level CSV reader for the student roster.
+ *
+ * The file is memory-mapped in windows and scanned in place: field boundaries are
+ * kept as offsets into the mapped buffer, numbers are parsed straight from the bytes
+ * and Strings are only created for the ID and Name columns.
+ *
+ * Column rules are the same ones StudentRecords always used:
+ *  - 2 columns  : ID, Name
+ *  - 3 columns  : ID, Name, Grade      (or ID, First, Last when the 3rd is not a number)
+ *  - 4+ columns : ID, First, Last, scores...  (or ID, Name, scores...) -> rounded average
+ *
+ * Quoted fields may contain commas and "" escapes. A record always ends at a newline.
+ * Lines with a single field or an unterminated quote are still reported (as they always
+ * were) but counted as malformed. Not thread-safe: use one reader per thread.
+ */
+public class StudentCsvReader {
+
+    /** Grade value passed to the handler when a row has no grade. */
+    public static final double NO_GRADE = Double.NaN;
+
+    // Size of each mapped window; lines never straddle two windows
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    // How many lines between two progress callbacks
+    private static final int PROGRESS_EVERY = 4096;
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    public interface RowHandler {
+        void row(String id, String name, double grade);
+
+        /** Called every few thousand lines; return false to stop reading. */
+        default boolean progress(long position, long size) { return true; }
+    }
+
+    /** Handler that also wants every column as a number, not only the averaged grade. */
+    public interface ScoreHandler extends RowHandler {
+        /**
+         * Called just before row() with numbers[f] = field f as a number (only its
+         * [0-9.-] characters, as for the grade) or NaN, for f < count. Only valid during the call.
+         */
+        void fields(double[] numbers, int count);
+    }
+
+    // Field spans of the current line (after trimming / unquoting)
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private boolean[] fieldEscaped = new boolean[16];
+    private int fieldCount;
+
+    private byte[] scratch = new byte[256];
+    private double[] numbers = new double[16];
+    private long windowBase;
+    private long totalSize;
+    private boolean stopped;
+    private long malformed;
+    private boolean unterminatedQuote;
+
+    /** Maps the file and reports every row to the handler. Returns the number of rows read. */
+    public long read(File file, RowHandler handler) throws IOException {
+        long rows = 0;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            totalSize = size;
+            stopped = false;
+            long pos = 0;
+            while (pos < size && !stopped) {
+                long len = Math.min(WINDOW_SIZE, size - pos);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                int end = (int) len;
+                if (pos + len < size) {
+                    end = lastNewline(buf, end) + 1;
+                    if (end == 0) throw new IOException("Line longer than " + WINDOW_SIZE + " bytes at offset " + pos);
+                }
+                windowBase = pos;
+                rows += parse(buf, 0, end, pos == 0, handler);
+                pos += end;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Parses the lines in buf[from, to). When firstLine is true the first line is checked
+     * for the header (and a UTF-8 BOM is skipped). Returns the number of rows reported.
+     */
+    public int parse(ByteBuffer buf, int from, int to, boolean firstLine, RowHandler handler) {
+        if (firstLine && to - from >= 3 && (buf.get(from) & 0xFF) == 0xEF
+                && (buf.get(from + 1) & 0xFF) == 0xBB && (buf.get(from + 2) & 0xFF) == 0xBF) {
+            from += 3;
+        }
+        int rows = 0;
+        int lines = 0;
+        int pos = from;
+        while (pos < to) {
+            int nl = pos;
+            while (nl < to && buf.get(nl) != '\n') nl++;
+            int end = nl;
+            if (end > pos && buf.get(end - 1) == '\r') end--;
+
+            if (firstLine) {
+                firstLine = false;
+                if (!isHeader(buf, pos, end)) { parseLine(buf, pos, end, handler); rows++; }
+            } else if (!isBlank(buf, pos, end)) {
+                parseLine(buf, pos, end, handler);
+                rows++;
+            }
+            pos = nl + 1;
+
+            if (++lines == PROGRESS_EVERY) {
+                lines = 0;
+                if (!handler.progress(windowBase + pos, totalSize)) { stopped = true; break; }
+            }
+        }
+        if (!stopped && !handler.progress(windowBase + Math.min(pos, to), totalSize)) stopped = true;
+        return rows;
+    }
+
+    /** True once a handler asked to stop. */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /** Lines seen so far that had a single field or an unterminated quote. */
+    public long malformedLines() {
+        return malformed;
+    }
+
+    /** Field text quoted for this format when it would not survive as-is. */
+    public static String quote(String s) {
+        boolean quote = !s.isEmpty() && (s.charAt(0) <= ' ' || s.charAt(s.length() - 1) <= ' ');
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? '"' + s.replace("\"", "\"\"").replace('\n', ' ').replace('\r', ' ') + '"' : s;
+    }
+
+    private void parseLine(ByteBuffer buf, int start, int end, RowHandler handler) {
+        splitFields(buf, start, end);
+        if (fieldCount < 2 || unterminatedQuote) malformed++;
+        String id = fieldString(buf, 0);
+        String name = "";
+        double grade = NO_GRADE;
+        if (fieldCount == 2) name = fieldString(buf, 1);
+        else if (fieldCount == 3) {
+            if (isNumeric(buf, 2)) { name = fieldString(buf, 1); grade = parseNumber(buf, 2); }
+            else name = joinedString(buf, 1, 2);
+        } else if (fieldCount >= 4) {
+            if (!isNumeric(buf, 1) && !isNumeric(buf, 2)) {
+                name = joinedString(buf, 1, 2);
+                grade = average(buf, 3);
+            } else {
+                name = fieldString(buf, 1);
+                grade = average(buf, 2);
+            }
+        }
+        if (handler instanceof ScoreHandler) {
+            if (numbers.length < fieldCount) numbers = new double[fieldStart.length];
+            for (int f = 0; f < fieldCount; f++) numbers[f] = parseStripped(buf, fieldStart[f], fieldEnd[f]);
+            ((ScoreHandler) handler).fields(numbers, fieldCount);
+        }
+        handler.row(id, name, grade);
+    }
+
+    // Fills fieldStart/fieldEnd for the line; spans exclude surrounding blanks and quotes
+    private void splitFields(ByteBuffer buf, int start, int end) {
+        fieldCount = 0;
+        unterminatedQuote = false;
+        int pos = start;
+        while (true) {
+            if (fieldCount == fieldStart.length) growFields();
+            int s = pos;
+            while (s < end && (buf.get(s) & 0xFF) <= ' ') s++;
+            int e;
+            boolean escaped = false;
+            if (s < end && buf.get(s) == '"') {
+                // quoted field: runs to the closing quote, "" is an escaped quote
+                int q = s + 1;
+                while (q < end) {
+                    if (buf.get(q) == '"') {
+                        if (q + 1 < end && buf.get(q + 1) == '"') { escaped = true; q += 2; continue; }
+                        break;
+                    }
+                    q++;
+                }
+                if (q >= end) unterminatedQuote = true;
+                fieldStart[fieldCount] = s + 1;
+                fieldEnd[fieldCount] = q;
+                pos = q;
+                while (pos < end && buf.get(pos) != ',') pos++;
+            } else {
+                e = s;
+                while (e < end && buf.get(e) != ',') e++;
+                pos = e;
+                while (e > s && (buf.get(e - 1) & 0xFF) <= ' ') e--;
+                if (e > s && buf.get(e - 1) == '"') e--;
+                fieldStart[fieldCount] = s;
+                fieldEnd[fieldCount] = e;
+            }
+            fieldEscaped[fieldCount] = escaped;
+            fieldCount++;
+            if (pos >= end) break;
+            pos++; // skip the comma
+        }
+    }
+
+    private void growFields() {
+        int n = fieldStart.length * 2;
+        fieldStart = java.util.Arrays.copyOf(fieldStart, n);
+        fieldEnd = java.util.Arrays.copyOf(fieldEnd, n);
+        fieldEscaped = java.util.Arrays.copyOf(fieldEscaped, n);
+    }
+
+    private String fieldString(ByteBuffer buf, int f) {
+        int len = copyField(buf, f, 0);
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    private String joinedString(ByteBuffer buf, int f1, int f2) {
+        int len = copyField(buf, f1, 0);
+        ensureScratch(len + 1);
+        scratch[len++] = ' ';
+        len = copyField(buf, f2, len);
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    // Copies a field into scratch at offset, collapsing "" escapes; returns the new length
+    private int copyField(ByteBuffer buf, int f, int offset) {
+        int s = fieldStart[f], e = fieldEnd[f];
+        ensureScratch(offset + (e - s));
+        boolean escaped = fieldEscaped[f];
+        for (int i = s; i < e; i++) {
+            byte b = buf.get(i);
+            scratch[offset++] = b;
+            if (escaped && b == '"' && i + 1 < e && buf.get(i + 1) == '"') i++;
+        }
+        return offset;
+    }
+
+    private void ensureScratch(int n) {
+        if (n > scratch.length) scratch = java.util.Arrays.copyOf(scratch, Math.max(n, scratch.length * 2));
+    }
+
+    // Average of the numeric fields from index start, rounded like Math.round; NO_GRADE if none
+    private double average(ByteBuffer buf, int start) {
+        double sum = 0;
+        int count = 0;
+        for (int f = start; f < fieldCount; f++) {
+            double v = parseStripped(buf, fieldStart[f], fieldEnd[f]);
+            if (Double.isNaN(v)) continue;
+            sum += v;
+            count++;
+        }
+        if (count == 0) return NO_GRADE;
+        return Math.round(sum / count);
+    }
+
+    /*
+     * Number made of only the [0-9.-] characters of the span (everything else is ignored),
+     * or NaN when those characters do not form a number.
+     */
+    private double parseStripped(ByteBuffer buf, int s, int e) {
+        long mantissa = 0;
+        int digits = 0, scale = 0;
+        boolean negative = false, dot = false, any = false;
+        for (int i = s; i < e; i++) {
+            byte b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                if (digits >= 15) return slowStripped(buf, s, e);
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) digits++;
+                if (dot) scale++;
+                any = true;
+            } else if (b == '.') {
+                if (dot) return Double.NaN;
+                dot = true;
+            } else if (b == '-') {
+                if (any || dot || negative) return Double.NaN;
+                negative = true;
+            }
+        }
+        if (!any) return Double.NaN;
+        if (scale >= POW10.length) return slowStripped(buf, s, e);
+        double v = mantissa / POW10[scale];
+        return negative ? -v : v;
+    }
+
+    // Rare path for numbers with more digits than a double holds exactly
+    private double slowStripped(ByteBuffer buf, int s, int e) {
+        StringBuilder sb = new StringBuilder(e - s);
+        for (int i = s; i < e; i++) {
+            char c = (char) buf.get(i);
+            if ((c >= '0' && c <= '9') || c == '.' || c == '-') sb.append(c);
+        }
+        try { return Double.parseDouble(sb.toString()); } catch (NumberFormatException ex) { return Double.NaN; }
+    }
+
+    // Same answer as Double.parseDouble(field) succeeding, without building the String
+    private boolean isNumeric(ByteBuffer buf, int f) {
+        int i = fieldStart[f], e = fieldEnd[f];
+        if (i >= e) return false;
+        byte b = buf.get(i);
+        if (b == '+' || b == '-') { if (++i >= e) return false; b = buf.get(i); }
+        if (b == 'N') return matches(buf, i, e, "NaN");
+        if (b == 'I') return matches(buf, i, e, "Infinity");
+        if (b == '0' && i + 1 < e && (buf.get(i + 1) | 0x20) == 'x') {
+            String s = new String(scratch, 0, copyField(buf, f, 0), StandardCharsets.ISO_8859_1);
+            try { Double.parseDouble(s); return true; } catch (NumberFormatException ex) { return false; }
+        }
+        int digits = 0;
+        while (i < e && isDigit(buf.get(i))) { i++; digits++; }
+        if (i < e && buf.get(i) == '.') {
+            i++;
+            while (i < e && isDigit(buf.get(i))) { i++; digits++; }
+        }
+        if (digits == 0) return false;
+        if (i < e && (buf.get(i) | 0x20) == 'e') {
+            i++;
+            if (i < e && (buf.get(i) == '+' || buf.get(i) == '-')) i++;
+            int exp = 0;
+            while (i < e && isDigit(buf.get(i))) { i++; exp++; }
+            if (exp == 0) return false;
+        }
+        if (i < e) {
+            int c = buf.get(i) | 0x20;
+            if (c == 'f' || c == 'd') i++;
+        }
+        return i == e;
+    }
+
+    // Value of a field that passed isNumeric
+    private double parseNumber(ByteBuffer buf, int f) {
+        int s = fieldStart[f], e = fieldEnd[f];
+        long mantissa = 0;
+        int digits = 0, scale = 0;
+        boolean negative = false, dot = false;
+        for (int i = s; i < e; i++) {
+            byte b = buf.get(i);
+            if (i == s && (b == '-' || b == '+')) { negative = b == '-'; continue; }
+            if (b == '.' && !dot) { dot = true; continue; }
+            if (!isDigit(b) || digits >= 15) return Double.parseDouble(fieldAscii(buf, f));
+            mantissa = mantissa * 10 + (b - '0');
+            if (mantissa != 0) digits++;
+            if (dot) scale++;
+        }
+        if (scale >= POW10.length) return Double.parseDouble(fieldAscii(buf, f));
+        double v = mantissa / POW10[scale];
+        return negative ? -v : v;
+    }
+
+    private String fieldAscii(ByteBuffer buf, int f) {
+        return new String(scratch, 0, copyField(buf, f, 0), StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean matches(ByteBuffer buf, int i, int e, String word) {
+        if (e - i != word.length()) return false;
+        for (int k = 0; k < word.length(); k++) if (buf.get(i + k) != word.charAt(k)) return false;
+        return true;
+    }
+
+    static boolean isBlank(ByteBuffer buf, int s, int e) {
+        for (int i = s; i < e; i++) if ((buf.get(i) & 0xFF) > ' ') return false;
+        return true;
+    }
+
+    // Header if the line contains "studentid" or "first_name" (ASCII case-insensitive)
+    static boolean isHeader(ByteBuffer buf, int s, int e) {
+        return containsIgnoreCase(buf, s, e, "studentid") || containsIgnoreCase(buf, s, e, "first_name");
+    }
+
+    private static boolean containsIgnoreCase(ByteBuffer buf, int s, int e, String word) {
+        int n = word.length();
+        outer:
+        for (int i = s; i + n <= e; i++) {
+            for (int k = 0; k < n; k++) {
+                int b = buf.get(i + k);
+                if (b >= 'A' && b <= 'Z') b += 32;
+                if (b != word.charAt(k)) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    static int lastNewline(ByteBuffer buf, int end) {
+        for (int i = end - 1; i >= 0; i--) if (buf.get(i) == '\n') return i;
+        return -1;
+    }
+}
@@ -0,0 +1,235 @@
+// Programmer: Jurrien Julianda / Student ID: 25-0909-131
+// File: StudentIndex.java
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Indexes over the rows of a StudentTableModel.
+ *
+ *  - hash index  : StudentID -> row, open addressing over primitive arrays, used for
+ *                  O(1) lookup and to reject duplicate IDs
+ *  - sorted index: rows ordered by numeric ID and by name, rebuilt lazily after a
+ *                  change, used for ID-range and name-prefix searches
+ *
+ * Packed numeric IDs are hashed as a long (value plus digit count, so "0123" and "123"
+ * stay different); the rare non-numeric ID goes into a plain HashMap. Empty IDs are
+ * not indexed. Must only be used from the thread that owns the model (the EDT).
+ */
+public class StudentIndex {
+
+    private static final int DIGITS_SHIFT = 57;
+
+    private final StudentTableModel.Columns data;
+
+    // Open-addressing hash, linear probing; key 0 marks a free slot
+    private long[] keys = new long[1024];
+    private int[] rows = new int[1024];
+    private int used;
+    private final Map<String, Integer> textIds = new HashMap<>();
+
+    // Sorted indexes, valid only while sortedDirty is false
+    private int[] byId = new int[0];
+    private int byIdCount;
+    private int[] byName = new int[0];
+    private boolean sortedDirty = true;
+
+    public StudentIndex(StudentTableModel.Columns data) {
+        this.data = data;
+    }
+
+    /** Row with this ID, or -1. */
+    public int find(String id) {
+        long key = key(id);
+        if (key != 0) return get(key);
+        if (id.isEmpty()) return -1;
+        Integer row = textIds.get(id);
+        return row != null ? row : -1;
+    }
+
+    /** Row already using the ID of row r of the given columns, or -1. */
+    int find(StudentTableModel.Columns c, int r) {
+        long key = key(c, r);
+        if (key != 0) return get(key);
+        return find(c.id(r));
+    }
+
+    /** Records that row r of the given columns will live at targetRow of the model. */
+    void put(StudentTableModel.Columns c, int r, int targetRow) {
+        long key = key(c, r);
+        if (key != 0) {
+            put(key, targetRow);
+        } else if ((int) c.idValue[r] > 0) {
+            textIds.put(c.id(r), targetRow);
+        }
+        sortedDirty = true;
+    }
+
+    /** Forgets the given model row and shifts the rows after it down by one. */
+    void removed(int row) {
+        long key = key(data, row);
+        if (key != 0) delete(key);
+        else textIds.remove(data.id(row));
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && rows[i] > row) rows[i]--;
+        }
+        for (Map.Entry<String, Integer> e : textIds.entrySet()) {
+            if (e.getValue() > row) e.setValue(e.getValue() - 1);
+        }
+        sortedDirty = true;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        used = 0;
+        textIds.clear();
+        sortedDirty = true;
+    }
+
+    /** Rows whose numeric ID lies in [lo, hi], in ID order. */
+    public int[] idRange(long lo, long hi) {
+        ensureSorted();
+        int from = lowerBound(lo);
+        int to = lowerBound(hi + 1);
+        return Arrays.copyOfRange(byId, from, Math.max(from, to));
+    }
+
+    /** Rows whose name starts with prefix (ignoring case), in name order. */
+    public int[] namePrefix(String prefix) {
+        ensureSorted();
+        String p = prefix.toLowerCase();
+        int lo = 0, hi = data.size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareName(byName[mid], p) < 0) lo = mid + 1; else hi = mid;
+        }
+        int end = lo;
+        while (end < data.size && startsWith(byName[end], p)) end++;
+        return Arrays.copyOfRange(byName, lo, end);
+    }
+
+    private int lowerBound(long value) {
+        int lo = 0, hi = byIdCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (data.idValue[byId[mid]] < value) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private void ensureSorted() {
+        if (!sortedDirty) return;
+        int n = data.size;
+        if (byName.length < n) {
+            byId = new int[n];
+            byName = new int[n];
+        }
+        byIdCount = 0;
+        for (int r = 0; r < n; r++) {
+            byName[r] = r;
+            if (data.idDigits[r] > 0) byId[byIdCount++] = r;
+        }
+        IntSort.sort(byId, 0, byIdCount, data::compareId);
+        IntSort.sort(byName, 0, n, data::compareName);
+        sortedDirty = false;
+    }
+
+    // Compares the lower-cased name of row r with an already lower-cased string
+    private int compareName(int r, String p) {
+        char[] t = data.text;
+        int off = data.nameOffset[r], len = data.nameLength[r];
+        int n = Math.min(len, p.length());
+        for (int i = 0; i < n; i++) {
+            char c = Character.toLowerCase(t[off + i]);
+            if (c != p.charAt(i)) return c - p.charAt(i);
+        }
+        return len - p.length();
+    }
+
+    private boolean startsWith(int r, String p) {
+        if (data.nameLength[r] < p.length()) return false;
+        char[] t = data.text;
+        int off = data.nameOffset[r];
+        for (int i = 0; i < p.length(); i++) {
+            if (Character.toLowerCase(t[off + i]) != p.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // ---- primitive hash ----
+
+    private static long key(StudentTableModel.Columns c, int r) {
+        int digits = c.idDigits[r];
+        return digits > 0 ? c.idValue[r] | ((long) digits << DIGITS_SHIFT) : 0;
+    }
+
+    // Same packing as Columns uses, for an ID typed in by the user
+    private static long key(String id) {
+        int n = id.length();
+        if (n == 0 || n > 17) return 0;
+        long v = 0;
+        for (int i = 0; i < n; i++) {
+            char ch = id.charAt(i);
+            if (ch < '0' || ch > '9') return 0;
+            v = v * 10 + (ch - '0');
+        }
+        return v | ((long) n << DIGITS_SHIFT);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (keys.length - 1);
+    }
+
+    private int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) return rows[i];
+        }
+        return -1;
+    }
+
+    private void put(long key, int row) {
+        if ((used + 1) * 2 > keys.length) rehash(keys.length * 2);
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (keys[i] != 0 && keys[i] != key) i = (i + 1) & mask;
+        if (keys[i] == 0) used++;
+        keys[i] = key;
+        rows[i] = row;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void delete(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (keys[i] != key) {
+            if (keys[i] == 0) return;
+            i = (i + 1) & mask;
+        }
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            boolean movable = hole <= j ? (home <= hole || home > j) : (home <= hole && home > j);
+            if (movable) {
+                keys[hole] = keys[j];
+                rows[hole] = rows[j];
+                hole = j;
+            }
+        }
+        keys[hole] = 0;
+        used--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldRows = rows;
+        keys = new long[capacity];
+        rows = new int[capacity];
+        used = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) put(oldKeys[i], oldRows[i]);
+        }
+    }
+}
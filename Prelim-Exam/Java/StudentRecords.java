@@ -2,7 +2,6 @@
 // File: StudentRecords.java
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
@@ -11,23 +10,54 @@ import java.util.*;
 
 public class StudentRecords extends JFrame implements ActionListener {
 
-    private DefaultTableModel model;
+    // Rows are handed to the table in batches of this size while loading
+    private static final int LOAD_BATCH_SIZE = 1000;
+    // Files at least this big are parsed in parallel (-Dstudentrecords.parallel=true/false overrides)
+    private static final long PARALLEL_LOAD_THRESHOLD = 32L * 1024 * 1024;
+    // Files this many times bigger than the heap is allowed to get open as a read-only
+    // paged view (-Dstudentrecords.paged=true/false overrides)
+    private static final int PAGED_VIEW_FACTOR = 2;
+
+    // Whole load until the table is ready, the parse itself, and event-thread time spent adding rows
+    private static final Metrics.Timer LOAD_TIME = Metrics.timer("load");
+    private static final Metrics.Timer PARSE_TIME = Metrics.timer("load.parse");
+    private static final Metrics.Timer APPEND_TIME = Metrics.timer("load.appendRows");
+    private static final Metrics.Counter ROWS_PARSED = Metrics.counter("rows.parsed");
+    private static final Metrics.Counter BYTES_PARSED = Metrics.counter("bytes.parsed");
+
+    private StudentTableModel model;
     private JTable table;
     private JTextField idField, nameField, gradeField;
     private JButton addBtn, deleteBtn;
+    private JTextField searchField;
+    private JButton searchBtn;
+    private StudentRowSorter sorter;
+    private JTextField filterNameField, minGradeField, maxGradeField;
+    private JButton filterBtn, clearFilterBtn;
+    private JLabel sortingLabel;
+    private JProgressBar loadProgress;
+    private JButton cancelLoadBtn;
+    private JLabel statusLabel;
+    private CsvLoadWorker loader;
+    private StudentChangeLog changeLog;
+    private PagedStudentTableModel pagedModel;
+    private PagedIndexWorker indexer;
 
     public StudentRecords() {
         this.setTitle("Records - Jurrien Julianda 25-0909-131");
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        this.setSize(680, 420);
+        this.setSize(900, 460);
         this.setLocationRelativeTo(null);
 
-        model = new DefaultTableModel(new Object[]{"ID", "Name", "Grade"}, 0) {
-            public boolean isCellEditable(int row, int column) { return false; }
-        };
+        model = new StudentTableModel();
 
         table = new JTable(model);
+        // Header clicks sort, filters are applied from the bar above; both run off the EDT
+        sorter = new StudentRowSorter(model);
+        table.setRowSorter(sorter);
         JScrollPane scroll = new JScrollPane(table);
+        // A paged view reads rows on demand; fetch the ones around the viewport ahead of time
+        scroll.getViewport().addChangeListener(e -> prefetchVisibleRows(scroll.getViewport()));
 
         JPanel inputPanel = new JPanel(new GridBagLayout());
         GridBagConstraints c = new GridBagConstraints();
@@ -56,9 +86,71 @@ public class StudentRecords extends JFrame implements ActionListener {
         c.gridx = 0; c.gridy = 3; inputPanel.add(addBtn, c);
         c.gridx = 1; c.gridy = 3; inputPanel.add(deleteBtn, c);
 
+        // Search bar: exact ID, ID range (100000000-200000000) or name prefix
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 4));
+        searchField = new JTextField(22);
+        searchField.setToolTipText("Student ID, ID range like 100000000-200000000, or the start of a name");
+        searchBtn = new JButton("Find");
+        searchField.addActionListener(this);
+        searchBtn.addActionListener(this);
+        searchPanel.add(new JLabel("Search"));
+        searchPanel.add(searchField);
+        searchPanel.add(searchBtn);
+
+        filterNameField = new JTextField(10);
+        filterNameField.setToolTipText("Show only names containing this text");
+        minGradeField = new JTextField(4);
+        maxGradeField = new JTextField(4);
+        filterBtn = new JButton("Filter");
+        clearFilterBtn = new JButton("Clear");
+        sortingLabel = new JLabel("Sorting...");
+        sortingLabel.setVisible(false);
+        filterNameField.addActionListener(this);
+        minGradeField.addActionListener(this);
+        maxGradeField.addActionListener(this);
+        filterBtn.addActionListener(this);
+        clearFilterBtn.addActionListener(this);
+        sorter.setBusyListener(sortingLabel::setVisible);
+        searchPanel.add(new JLabel("  Name has"));
+        searchPanel.add(filterNameField);
+        searchPanel.add(new JLabel("Grade"));
+        searchPanel.add(minGradeField);
+        searchPanel.add(new JLabel("to"));
+        searchPanel.add(maxGradeField);
+        searchPanel.add(filterBtn);
+        searchPanel.add(clearFilterBtn);
+        searchPanel.add(sortingLabel);
+
+        // Status bar: load progress + cancel
+        JPanel statusPanel = new JPanel(new BorderLayout(8,0));
+        statusLabel = new JLabel(" ");
+        loadProgress = new JProgressBar(0, 100);
+        loadProgress.setStringPainted(true);
+        loadProgress.setVisible(false);
+        cancelLoadBtn = new JButton("Cancel");
+        cancelLoadBtn.setVisible(false);
+        cancelLoadBtn.addActionListener(this);
+        statusPanel.add(statusLabel, BorderLayout.CENTER);
+        statusPanel.add(loadProgress, BorderLayout.EAST);
+        statusPanel.add(cancelLoadBtn, BorderLayout.WEST);
+
         this.setLayout(new BorderLayout(8,8));
         this.add(scroll, BorderLayout.CENTER);
         this.add(inputPanel, BorderLayout.EAST);
+        this.add(searchPanel, BorderLayout.NORTH);
+        this.add(statusPanel, BorderLayout.SOUTH);
+
+        // Flush pending changes to the log before the window closes
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (changeLog != null) changeLog.close();
+                if (pagedModel != null) pagedModel.close();
+            }
+        });
+
+        // Show the window first, the CSV is parsed in the background
+        this.setVisible(true);
 
         // Defensive CSV loading
         try {
@@ -68,8 +160,6 @@ public class StudentRecords extends JFrame implements ActionListener {
             JOptionPane.showMessageDialog(this, "Fatal error loading CSV:\n" + ex.getMessage(),
                     "Error", JOptionPane.ERROR_MESSAGE);
         }
-
-        this.setVisible(true);
     }
 
     // Try several likely locations for the CSV, and also the classpath
@@ -118,14 +208,9 @@ public class StudentRecords extends JFrame implements ActionListener {
 
         // 4) try classpath resource (bundled into jar or resources)
         tried.add("classpath:/" + fileName);
-        InputStream resourceStream = StudentRecords.class.getResourceAsStream("/" + fileName);
-        if (resourceStream != null) {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(resourceStream))) {
-                loadCSVFromReader(reader);
-                return;
-            } catch (IOException ioe) {
-                // fall through to error below
-            }
+        if (StudentRecords.class.getResource("/" + fileName) != null) {
+            startLoad(new CsvLoadWorker(null, "/" + fileName));
+            return;
         }
 
         // If we reach here, none of the locations worked. Show a helpful message listing tries.
@@ -141,68 +226,298 @@ public class StudentRecords extends JFrame implements ActionListener {
         JOptionPane.showMessageDialog(this, sb.toString(), "CSV not found", JOptionPane.ERROR_MESSAGE);
     }
 
+    // Loads the newest snapshot of the CSV (or the CSV itself) and replays its change log
     private void loadCSV(File file) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            loadCSVFromReader(reader);
-        } catch (IOException ioe) {
-            JOptionPane.showMessageDialog(this, "Error reading CSV:\n" + ioe.getMessage(),
+        changeLog = StudentChangeLog.open(file);
+        if (usePagedView(changeLog.baseFile())) {
+            openPagedView(changeLog.baseFile());
+            return;
+        }
+        startLoad(new CsvLoadWorker(changeLog.baseFile(), null));
+    }
+
+    private static boolean usePagedView(File file) {
+        String mode = System.getProperty("studentrecords.paged");
+        if (mode != null) return Boolean.parseBoolean(mode);
+        return file.length() * PAGED_VIEW_FACTOR > Runtime.getRuntime().maxMemory();
+    }
+
+    // Shows the file through a disk-paged model: nothing is loaded up front and nothing can be edited
+    private void openPagedView(File file) {
+        try {
+            pagedModel = new PagedStudentTableModel(file);
+        } catch (IOException ex) {
+            changeLog = null;
+            JOptionPane.showMessageDialog(this, "Error reading CSV:\n" + ex.getMessage(),
                     "Read Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        table.setRowSorter(null);
+        table.setModel(pagedModel);
+        for (JComponent c : new JComponent[]{addBtn, deleteBtn, searchField, searchBtn,
+                filterNameField, minGradeField, maxGradeField, filterBtn, clearFilterBtn}) {
+            c.setEnabled(false);
         }
+        indexer = new PagedIndexWorker(pagedModel);
+        statusLabel.setText("Indexing " + file.getName() + "...");
+        loadProgress.setValue(0);
+        loadProgress.setIndeterminate(false);
+        loadProgress.setVisible(true);
+        cancelLoadBtn.setVisible(true);
+        indexer.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) loadProgress.setValue((Integer) evt.getNewValue());
+        });
+        indexer.execute();
     }
 
-    private void loadCSVFromReader(BufferedReader reader) throws IOException {
-        String first = reader.readLine();
-        if (first == null) return;
-        boolean hasHeader = first.toLowerCase().contains("studentid") || first.toLowerCase().contains("first_name");
-        if (!hasHeader) parseAndAddLine(first);
-        String line;
-        while ((line = reader.readLine()) != null) {
-            if (!line.trim().isEmpty()) parseAndAddLine(line);
-        }
-    }
-
-    private void parseAndAddLine(String line) {
-        String[] parts = line.split(",", -1);
-        for (int i = 0; i < parts.length; i++) parts[i] = parts[i].trim().replaceAll("^\"|\"$", "");
-        if (parts.length == 0) return;
-        String id = parts[0];
-        String name = "";
-        String grade = "";
-        if (parts.length == 2) name = parts[1];
-        else if (parts.length == 3) {
-            if (isNumeric(parts[2])) { name = parts[1]; grade = parts[2]; }
-            else name = parts[1] + " " + parts[2];
-        } else if (parts.length >= 4) {
-            if (!isNumeric(parts[1]) && !isNumeric(parts[2])) {
-                name = parts[1] + " " + parts[2];
-                grade = computeAverage(parts, 3);
-            } else {
-                name = parts[1];
-                grade = computeAverage(parts, 2);
-            }
+    private void prefetchVisibleRows(JViewport viewport) {
+        if (pagedModel == null || table.getRowCount() == 0) return;
+        Rectangle view = viewport.getViewRect();
+        int first = table.rowAtPoint(new Point(0, view.y));
+        int last = table.rowAtPoint(new Point(0, view.y + view.height - 1));
+        if (first < 0) return;
+        if (last < 0) last = table.getRowCount() - 1;
+        pagedModel.prefetch(first, last);
+    }
+
+    private void indexFinished(PagedIndexWorker worker) {
+        loadProgress.setVisible(false);
+        cancelLoadBtn.setVisible(false);
+        if (indexer == worker) indexer = null;
+        // the paged view is read-only, so logged changes are neither shown nor extended
+        changeLog = null;
+        if (worker.isCancelled()) {
+            statusLabel.setText("Indexing cancelled - showing the first " + table.getRowCount() + " rows (read-only)");
+            return;
+        }
+        try {
+            int rows = worker.get();
+            String msg = "Read-only view of " + rows + " rows from " + pagedModel.getFile().getName()
+                    + " (too large to edit in memory)";
+            if (worker.loggedChanges > 0) msg += ", " + worker.loggedChanges + " logged changes not shown";
+            statusLabel.setText(msg);
+        } catch (Exception ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            statusLabel.setText("Indexing failed");
+            JOptionPane.showMessageDialog(this, "Error reading CSV:\n" + cause.getMessage(),
+                    "Read Error", JOptionPane.ERROR_MESSAGE);
         }
-        model.addRow(new Object[]{id, name, grade});
     }
 
-    private String computeAverage(String[] parts, int start) {
-        double sum = 0;
-        int count = 0;
-        for (int i = start; i < parts.length; i++) {
-            String p = parts[i].replaceAll("[^0-9\\.\\-]", "");
-            if (p.isEmpty()) continue;
+    private void startLoad(CsvLoadWorker worker) {
+        loader = worker;
+        addBtn.setEnabled(false);
+        deleteBtn.setEnabled(false);
+        statusLabel.setText("Loading " + worker.sourceName() + "...");
+        loadProgress.setValue(0);
+        loadProgress.setIndeterminate(worker.totalBytes <= 0);
+        loadProgress.setVisible(true);
+        cancelLoadBtn.setVisible(true);
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) loadProgress.setValue((Integer) evt.getNewValue());
+        });
+        worker.execute();
+    }
+
+    private static boolean useParallelLoad(File file) {
+        String mode = System.getProperty("studentrecords.parallel");
+        if (mode != null) return Boolean.parseBoolean(mode);
+        return file.length() >= PARALLEL_LOAD_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    private void loadFinished(CsvLoadWorker worker) {
+        loadProgress.setVisible(false);
+        cancelLoadBtn.setVisible(false);
+        addBtn.setEnabled(true);
+        deleteBtn.setEnabled(true);
+        if (loader == worker) loader = null;
+        if (worker.isCancelled()) {
+            // a partial table must never be compacted over the saved data
+            changeLog = null;
+            statusLabel.setText("Load cancelled - " + model.getRowCount() + " rows loaded, changes will not be saved");
+            return;
+        }
+        try {
+            worker.get();
+            if (worker.parsed) writeCache(worker.file, worker.parsedSize, worker.parsedMtime, model.copyRows());
+            int replayed = worker.replay != null ? worker.replay.size() : 0;
+            if (replayed > 0) applyChanges(worker.replay);
+            LOAD_TIME.record(worker.started);
+            String msg = "Loaded " + model.getRowCount() + " rows from " + worker.sourceName();
+            if (replayed > 0) msg += " + " + replayed + " logged changes";
+            if (model.getDuplicatesSkipped() > 0) msg += " (" + model.getDuplicatesSkipped() + " duplicate IDs skipped)";
+            statusLabel.setText(msg);
+            startChangeLog();
+        } catch (Exception ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            changeLog = null;
+            statusLabel.setText("Load failed");
+            JOptionPane.showMessageDialog(this, "Error reading CSV:\n" + cause.getMessage(),
+                    "Read Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Saves the freshly parsed rows as a binary cache so the next start can skip parsing
+    private static void writeCache(File csv, long size, long mtime, StudentTableModel.Columns rows) {
+        Thread t = new Thread(() -> {
             try {
-                double v = Double.parseDouble(p);
-                sum += v;
-                count++;
-            } catch (NumberFormatException ignored) {}
+                StudentSnapshotCache.write(csv, size, mtime, rows);
+            } catch (IOException ex) {
+                System.err.println("Could not write " + StudentSnapshotCache.cacheFile(csv) + ": " + ex.getMessage());
+            }
+        }, "student-cache-writer");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void startChangeLog() {
+        if (changeLog == null) return;
+        try {
+            changeLog.start();
+        } catch (IOException ioe) {
+            changeLog = null;
+            JOptionPane.showMessageDialog(this, "Could not open the change log, edits will not be saved:\n"
+                    + ioe.getMessage(), "Change Log", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
+    private void applyChanges(java.util.List<StudentChangeLog.Op> ops) {
+        for (StudentChangeLog.Op op : ops) {
+            if (op.type == StudentChangeLog.OP_ADD) model.addRow(op.id, op.name, op.grade);
+            else if (op.type == StudentChangeLog.OP_DELETE) model.removeStudent(op.id, op.name);
         }
-        if (count == 0) return "";
-        return String.valueOf(Math.round(sum / count));
     }
 
-    private boolean isNumeric(String s) {
-        if (s == null || s.trim().isEmpty()) return false;
-        try { Double.parseDouble(s); return true; } catch (Exception e) { return false; }
+    // Appends a change to the log; a failed write is reported, the table keeps the change
+    private void logChange(java.util.concurrent.CompletableFuture<Void> written) {
+        written.whenComplete((ok, err) -> {
+            if (err != null) SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "Could not save the change to disk:\n" + err.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE));
+        });
+        if (changeLog.needsCompaction()) changeLog.compact(model.copyRows());
+    }
+
+    // Finds the row boundaries of a paged view off the EDT; rows appear as pages are indexed
+    private final class PagedIndexWorker extends SwingWorker<Integer, Void> {
+        private final PagedStudentTableModel paged;
+        private final StudentChangeLog log = changeLog;
+        int loggedChanges;
+
+        PagedIndexWorker(PagedStudentTableModel paged) {
+            this.paged = paged;
+        }
+
+        @Override
+        protected Integer doInBackground() throws Exception {
+            int rows = paged.buildIndex(this::isCancelled, this::setProgress);
+            if (log != null) loggedChanges = log.readLog().size();
+            return rows;
+        }
+
+        @Override
+        protected void done() {
+            indexFinished(this);
+        }
+    }
+
+    // Reads and parses the CSV off the EDT; rows reach the table in batches through process()
+    private final class CsvLoadWorker extends SwingWorker<Integer, StudentTableModel.Columns>
+            implements StudentCsvReader.RowHandler {
+        private final File file;
+        private final String resource;
+        private final long totalBytes;
+        private final long started = System.nanoTime();
+        private StudentTableModel.Columns batch = new StudentTableModel.Columns(LOAD_BATCH_SIZE);
+        private int rows;
+        private java.util.List<StudentChangeLog.Op> replay;
+        // Set when the rows were parsed from the file (not taken from its cache)
+        private boolean parsed;
+        private long parsedSize, parsedMtime;
+
+        CsvLoadWorker(File file, String resource) {
+            this.file = file;
+            this.resource = resource;
+            this.totalBytes = file != null ? file.length() : -1;
+        }
+
+        String sourceName() {
+            return file != null ? file.getName() : "classpath:" + resource;
+        }
+
+        @Override
+        protected Integer doInBackground() throws IOException {
+            long t0 = System.nanoTime();
+            long bytes = totalBytes;
+            StudentCsvReader reader = new StudentCsvReader();
+            StudentTableModel.Columns cached = file != null ? StudentSnapshotCache.load(file) : null;
+            if (file != null) {
+                parsed = cached == null;
+                parsedSize = file.length();
+                parsedMtime = file.lastModified();
+            }
+            if (cached != null) {
+                rows = cached.size();
+                publish(cached);
+                setProgress(100);
+            } else if (file != null && useParallelLoad(file)) {
+                new ParallelCsvLoader().load(file, (chunk, end, size) -> {
+                    rows += chunk.size();
+                    publish(chunk);
+                    progress(end, size);
+                }, this::isCancelled);
+            } else if (file != null) {
+                reader.read(file, this);
+            } else {
+                // classpath resources cannot be mapped, parse them from a heap buffer instead
+                byte[] content;
+                try (InputStream in = StudentRecords.class.getResourceAsStream(resource)) {
+                    if (in == null) throw new FileNotFoundException(sourceName());
+                    content = in.readAllBytes();
+                }
+                bytes = content.length;
+                reader.parse(java.nio.ByteBuffer.wrap(content), 0, content.length, true, this);
+            }
+            if (!isCancelled()) flush();
+            if (!isCancelled() && cached == null) {
+                PARSE_TIME.record(t0);
+                ROWS_PARSED.add(rows);
+                BYTES_PARSED.add(bytes);
+            }
+            if (!isCancelled() && changeLog != null && file != null) replay = changeLog.readLog();
+            return rows;
+        }
+
+        @Override
+        public void row(String id, String name, double grade) {
+            batch.add(id, name, (float) grade);
+            if (batch.size() >= LOAD_BATCH_SIZE) flush();
+        }
+
+        @Override
+        public boolean progress(long position, long size) {
+            if (size > 0) setProgress((int) Math.min(100, position * 100 / size));
+            return !isCancelled();
+        }
+
+        private void flush() {
+            if (batch.size() == 0) return;
+            rows += batch.size();
+            publish(batch);
+            batch = new StudentTableModel.Columns(LOAD_BATCH_SIZE);
+        }
+
+        @Override
+        protected void process(java.util.List<StudentTableModel.Columns> chunks) {
+            if (isCancelled()) return;
+            long t0 = System.nanoTime();
+            model.appendAll(chunks);
+            APPEND_TIME.record(t0);
+        }
+
+        @Override
+        protected void done() {
+            loadFinished(this);
+        }
     }
 
     @Override
@@ -216,8 +531,34 @@ public class StudentRecords extends JFrame implements ActionListener {
                         "Input required", JOptionPane.WARNING_MESSAGE);
                 return;
             }
-            model.addRow(new Object[]{id, name, grade});
+            float gradeValue = Float.NaN;
+            if (!grade.isEmpty()) {
+                try {
+                    gradeValue = Float.parseFloat(grade);
+                } catch (NumberFormatException ex) {
+                    JOptionPane.showMessageDialog(this, "Grade must be a number (or left blank).",
+                            "Invalid grade", JOptionPane.WARNING_MESSAGE);
+                    return;
+                }
+            }
+            if (!model.addRow(id, name, gradeValue)) {
+                JOptionPane.showMessageDialog(this, "A student with ID " + id + " already exists.",
+                        "Duplicate ID", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            if (changeLog != null) logChange(changeLog.logAdd(id, name, gradeValue));
             idField.setText(""); nameField.setText(""); gradeField.setText("");
+        } else if (e.getSource() == searchBtn || e.getSource() == searchField) {
+            search(searchField.getText().trim());
+        } else if (e.getSource() == filterBtn || e.getSource() == filterNameField
+                || e.getSource() == minGradeField || e.getSource() == maxGradeField) {
+            applyFilter();
+        } else if (e.getSource() == clearFilterBtn) {
+            filterNameField.setText(""); minGradeField.setText(""); maxGradeField.setText("");
+            applyFilter();
+        } else if (e.getSource() == cancelLoadBtn) {
+            if (loader != null) loader.cancel(false);
+            if (indexer != null) indexer.cancel(false);
         } else if (e.getSource() == deleteBtn) {
             int row = table.getSelectedRow();
             if (row == -1) {
@@ -225,11 +566,75 @@ public class StudentRecords extends JFrame implements ActionListener {
                 return;
             }
             int confirm = JOptionPane.showConfirmDialog(this, "Delete selected row?", "Confirm delete", JOptionPane.YES_NO_OPTION);
-            if (confirm == JOptionPane.YES_OPTION) model.removeRow(row);
+            if (confirm == JOptionPane.YES_OPTION) {
+                int modelRow = table.convertRowIndexToModel(row);
+                String id = (String) model.getValueAt(modelRow, 0);
+                String name = (String) model.getValueAt(modelRow, 1);
+                model.removeRow(modelRow);
+                if (changeLog != null) logChange(changeLog.logDelete(id, name));
+            }
+        }
+    }
+
+    // Answers the query from the model's indexes and selects the matching rows
+    private void search(String query) {
+        if (query.isEmpty()) return;
+        StudentIndex index = model.getIndex();
+        int[] rows;
+        int dash = query.indexOf('-', 1);
+        if (dash > 0 && isDigits(query.substring(0, dash).trim()) && isDigits(query.substring(dash + 1).trim())
+                && query.length() < 40) {
+            rows = index.idRange(Long.parseLong(query.substring(0, dash).trim()),
+                    Long.parseLong(query.substring(dash + 1).trim()));
+        } else if (isDigits(query)) {
+            int row = index.find(query);
+            rows = row >= 0 ? new int[]{row} : new int[0];
+        } else {
+            rows = index.namePrefix(query);
         }
+
+        ListSelectionModel selection = table.getSelectionModel();
+        selection.setValueIsAdjusting(true);
+        table.clearSelection();
+        for (int row : rows) {
+            int view = table.convertRowIndexToView(row);
+            if (view >= 0) selection.addSelectionInterval(view, view);
+        }
+        selection.setValueIsAdjusting(false);
+        if (rows.length > 0) {
+            int first = table.convertRowIndexToView(rows[0]);
+            if (first >= 0) table.scrollRectToVisible(table.getCellRect(first, 0, true));
+        }
+        statusLabel.setText(rows.length + (rows.length == 1 ? " match" : " matches") + " for \"" + query + "\"");
+    }
+
+    private void applyFilter() {
+        float min, max;
+        try {
+            min = parseBound(minGradeField.getText());
+            max = parseBound(maxGradeField.getText());
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Grade limits must be numbers.", "Invalid Filter", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        sorter.setFilter(filterNameField.getText(), min, max);
+    }
+
+    // Empty means no limit
+    private static float parseBound(String text) {
+        text = text.trim();
+        return text.isEmpty() ? Float.NaN : Float.parseFloat(text);
+    }
+
+    private static boolean isDigits(String s) {
+        if (s.isEmpty() || s.length() > 17) return false;
+        for (int i = 0; i < s.length(); i++) if (s.charAt(i) < '0' || s.charAt(i) > '9') return false;
+        return true;
     }
 
     public static void main(String[] args) {
+        Metrics.start("StudentRecords");
+        Metrics.watchEdt();
         SwingUtilities.invokeLater(StudentRecords::new);
     }
 }
@@ -0,0 +1,133 @@
+// Programmer: Jurrien Julianda / Student ID: 25-0909-131
+// File: StudentRecordsBatch.java
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Headless batch mode for the student records (no display needed).
+ *
+ * Streams an input CSV through the same parsing and averaging rules as the
+ * StudentRecords window and writes ID,Name,Grade rows as they are parsed. The input
+ * is memory-mapped window by window and the output goes through one fixed-size
+ * buffer, so heap use stays the same whatever the file size.
+ *
+ * Usage: java StudentRecordsBatch <input.csv> [output.csv | -]
+ *        (output defaults to standard output)
+ */
+public class StudentRecordsBatch implements StudentCsvReader.RowHandler {
+
+    private static final int OUT_BUFFER_SIZE = 1 << 20;
+
+    private final WritableByteChannel out;
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(OUT_BUFFER_SIZE);
+    private long rows;
+    private long bytesWritten;
+    private IOException writeError;
+
+    StudentRecordsBatch(WritableByteChannel out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: java StudentRecordsBatch <input.csv> [output.csv | -]");
+            System.exit(2);
+        }
+        File input = new File(args[0]);
+        if (!input.isFile()) {
+            System.err.println("Input not found: " + input.getAbsolutePath());
+            System.exit(1);
+        }
+        boolean toStdout = args.length == 1 || "-".equals(args[1]);
+        try (WritableByteChannel ch = toStdout
+                ? Channels.newChannel(new FileOutputStream(java.io.FileDescriptor.out))
+                : FileChannel.open(new File(args[1]).toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            StudentRecordsBatch batch = new StudentRecordsBatch(ch);
+            StudentCsvReader reader = new StudentCsvReader();
+
+            long start = System.nanoTime();
+            batch.writeAscii("ID,Name,Grade\n");
+            reader.read(input, batch);
+            batch.flush();
+            double secs = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+
+            System.err.printf("Rows:            %d%n", batch.rows);
+            System.err.printf("Malformed lines: %d%n", reader.malformedLines());
+            System.err.printf("Input:           %.1f MB, output %.1f MB%n", input.length() / 1e6, batch.bytesWritten / 1e6);
+            System.err.printf("Elapsed:         %.2f s%n", secs);
+            System.err.printf("Throughput:      %.0f rows/s, %.1f MB/s%n", batch.rows / secs, input.length() / 1e6 / secs);
+        } catch (IOException ex) {
+            System.err.println("Batch run failed: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    @Override
+    public void row(String id, String name, double grade) {
+        if (writeError != null) return;
+        try {
+            writeText(StudentCsvReader.quote(id));
+            writeByte(',');
+            writeText(StudentCsvReader.quote(name));
+            writeByte(',');
+            writeAscii(StudentTableModel.formatGrade((float) grade));
+            writeByte('\n');
+            rows++;
+        } catch (IOException ex) {
+            writeError = ex;
+        }
+    }
+
+    @Override
+    public boolean progress(long position, long size) {
+        return writeError == null;
+    }
+
+    private void writeByte(char c) throws IOException {
+        if (!buf.hasRemaining()) drain();
+        buf.put((byte) c);
+    }
+
+    private void writeAscii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) writeByte(s.charAt(i));
+    }
+
+    // UTF-8 encoding straight into the output buffer; ASCII needs no temporary arrays
+    private void writeText(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                writeByte(c);
+            } else {
+                int end = i + 1;
+                while (end < s.length() && s.charAt(end) >= 0x80) end++;
+                byte[] encoded = s.substring(i, end).getBytes(StandardCharsets.UTF_8);
+                for (byte b : encoded) {
+                    if (!buf.hasRemaining()) drain();
+                    buf.put(b);
+                }
+                i = end - 1;
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) bytesWritten += out.write(buf);
+        buf.clear();
+    }
+
+    void flush() throws IOException {
+        if (writeError != null) throw writeError;
+        drain();
+    }
+}
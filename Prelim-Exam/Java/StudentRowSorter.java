@@ -0,0 +1,307 @@
+// Programmer: Jurrien Julianda / Student ID: 25-0909-131
+// File: StudentRowSorter.java
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+
+/*
+ * Sorts and filters the student table without blocking the UI.
+ *
+ * The view is a plain int[] of model rows. A new sort key or filter is computed on a
+ * background thread over a snapshot of the columns (IntSort, so the order is stable)
+ * and installed on the EDT when done; the table keeps showing the previous order in
+ * the meantime. Rows added or deleted afterwards are patched into the view in place:
+ * a small insert is placed by binary search, a large one is appended and followed by
+ * a background re-sort.
+ *
+ * Filters: name contains a string (ignoring case), grade between min and max (either
+ * bound may be NaN for "no limit"; rows without a grade never pass a grade filter).
+ */
+public class StudentRowSorter extends RowSorter<StudentTableModel> {
+
+    // Inserts up to this many rows are placed one by one; more trigger a background sort
+    private static final int INCREMENTAL_LIMIT = 64;
+
+    private final StudentTableModel model;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "student-sorter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private List<SortKey> sortKeys = Collections.emptyList();
+    private String nameFilter = "";
+    private float minGrade = Float.NaN;
+    private float maxGrade = Float.NaN;
+
+    // View state (EDT only)
+    private int[] viewToModel = new int[0];
+    private int viewCount;
+    private int[] modelToView = new int[0];
+    private boolean modelToViewDirty;
+    private int modelCount;
+
+    // Background work: results of an older request, or taken before a delete, are dropped
+    private volatile int requestId;
+    private int pendingId;
+    private int deletions;
+    private Consumer<Boolean> busyListener;
+
+    public StudentRowSorter(StudentTableModel model) {
+        this.model = model;
+        allRowsChanged();
+    }
+
+    /** Called with true when a background sort starts and false when it is installed. */
+    public void setBusyListener(Consumer<Boolean> listener) {
+        busyListener = listener;
+    }
+
+    /** Sets the filters and re-sorts in the background. */
+    public void setFilter(String nameContains, float min, float max) {
+        nameFilter = nameContains == null ? "" : nameContains.trim().toLowerCase();
+        minGrade = min;
+        maxGrade = max;
+        schedule();
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    @Override
+    public StudentTableModel getModel() {
+        return model;
+    }
+
+    @Override
+    public void toggleSortOrder(int column) {
+        SortOrder order = SortOrder.ASCENDING;
+        if (!sortKeys.isEmpty() && sortKeys.get(0).getColumn() == column
+                && sortKeys.get(0).getSortOrder() == SortOrder.ASCENDING) {
+            order = SortOrder.DESCENDING;
+        }
+        setSortKeys(Collections.singletonList(new SortKey(column, order)));
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        // one key is enough for this table; extra keys are ignored
+        List<SortKey> k = Collections.emptyList();
+        if (keys != null && !keys.isEmpty() && keys.get(0).getSortOrder() != SortOrder.UNSORTED) {
+            k = Collections.singletonList(keys.get(0));
+        }
+        if (k.equals(sortKeys)) return;
+        sortKeys = k;
+        fireSortOrderChanged();
+        schedule();
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (index < 0 || index >= viewCount) throw new IndexOutOfBoundsException("Invalid index " + index);
+        return viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (index < 0 || index >= modelCount) throw new IndexOutOfBoundsException("Invalid index " + index);
+        if (modelToViewDirty) {
+            if (modelToView.length < modelCount) modelToView = new int[modelCount];
+            Arrays.fill(modelToView, 0, modelCount, -1);
+            for (int v = 0; v < viewCount; v++) modelToView[viewToModel[v]] = v;
+            modelToViewDirty = false;
+        }
+        return modelToView[index];
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return viewCount;
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return modelCount;
+    }
+
+    // ---- model changes (called by JTable on the EDT) ----
+
+    @Override
+    public void modelStructureChanged() {
+        allRowsChanged();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        modelCount = model.getRowCount();
+        viewToModel = new int[Math.max(16, modelCount)];
+        viewCount = 0;
+        for (int r = 0; r < modelCount; r++) viewToModel[viewCount++] = r;
+        modelToViewDirty = true;
+        deletions++;
+        if (isActive()) schedule();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        int count = endRow - firstRow + 1;
+        if (firstRow < modelCount) {
+            for (int v = 0; v < viewCount; v++) {
+                if (viewToModel[v] >= firstRow) viewToModel[v] += count;
+            }
+        }
+        modelCount += count;
+        if (count <= INCREMENTAL_LIMIT && pendingId == 0) {
+            StudentTableModel.Columns c = model.columns();
+            for (int r = firstRow; r <= endRow; r++) {
+                if (accept(c, r)) insertAt(upperBound(c, r), r);
+            }
+        } else {
+            StudentTableModel.Columns c = model.columns();
+            for (int r = firstRow; r <= endRow; r++) {
+                if (accept(c, r)) insertAt(viewCount, r);
+            }
+            // a running sort picks these rows up when it is installed
+            if (isActive() && pendingId == 0) schedule();
+        }
+        modelToViewDirty = true;
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        int count = endRow - firstRow + 1;
+        int w = 0;
+        for (int v = 0; v < viewCount; v++) {
+            int m = viewToModel[v];
+            if (m >= firstRow && m <= endRow) continue;
+            viewToModel[w++] = m > endRow ? m - count : m;
+        }
+        viewCount = w;
+        modelCount -= count;
+        modelToViewDirty = true;
+        deletions++;
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        if (isActive()) schedule();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        rowsUpdated(firstRow, endRow);
+    }
+
+    // ---- sorting ----
+
+    private boolean isActive() {
+        return !sortKeys.isEmpty() || !nameFilter.isEmpty() || !Float.isNaN(minGrade) || !Float.isNaN(maxGrade);
+    }
+
+    private void schedule() {
+        final int id = ++requestId;
+        final int deletionsAtStart = deletions;
+        final StudentTableModel.Columns snapshot = model.columns().sharedView();
+        final int column = sortKeys.isEmpty() ? -1 : sortKeys.get(0).getColumn();
+        final boolean descending = !sortKeys.isEmpty() && sortKeys.get(0).getSortOrder() == SortOrder.DESCENDING;
+        final String name = nameFilter;
+        final float min = minGrade, max = maxGrade;
+        if (pendingId == 0 && busyListener != null) busyListener.accept(true);
+        pendingId = id;
+        worker.execute(() -> {
+            if (id != requestId) return;
+            int n = snapshot.size();
+            int[] rows = new int[Math.max(16, n)];
+            int count = 0;
+            for (int r = 0; r < n; r++) {
+                if (accept(snapshot, r, name, min, max)) rows[count++] = r;
+            }
+            if (column >= 0) {
+                IntSort.sort(rows, 0, count, (a, b) -> compare(snapshot, column, descending, a, b));
+            }
+            int viewRows = count;
+            SwingUtilities.invokeLater(() -> install(id, deletionsAtStart, n, rows, viewRows));
+        });
+    }
+
+    private void install(int id, int deletionsAtStart, int snapshotRows, int[] rows, int count) {
+        if (id != requestId) return;
+        if (deletionsAtStart != deletions) {
+            // row numbers in the result are out of date
+            schedule();
+            return;
+        }
+        int[] previous = Arrays.copyOf(viewToModel, viewCount);
+        viewToModel = rows;
+        viewCount = count;
+        pendingId = 0;
+        // rows appended while the sort was running
+        if (modelCount > snapshotRows) {
+            int last = modelCount - 1;
+            modelCount = snapshotRows;
+            rowsInserted(snapshotRows, last);
+        }
+        modelToViewDirty = true;
+        if (pendingId == 0 && busyListener != null) busyListener.accept(false);
+        fireRowSorterChanged(previous);
+    }
+
+    private void insertAt(int pos, int modelRow) {
+        if (viewCount == viewToModel.length) {
+            viewToModel = Arrays.copyOf(viewToModel, Math.max(16, viewCount + (viewCount >> 1)));
+        }
+        System.arraycopy(viewToModel, pos, viewToModel, pos + 1, viewCount - pos);
+        viewToModel[pos] = modelRow;
+        viewCount++;
+    }
+
+    // First view position after every row that sorts before or equal to modelRow
+    private int upperBound(StudentTableModel.Columns c, int modelRow) {
+        int column = sortKeys.isEmpty() ? -1 : sortKeys.get(0).getColumn();
+        boolean descending = !sortKeys.isEmpty() && sortKeys.get(0).getSortOrder() == SortOrder.DESCENDING;
+        int lo = 0, hi = viewCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(c, column, descending, viewToModel[mid], modelRow) <= 0) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private boolean accept(StudentTableModel.Columns c, int r) {
+        return accept(c, r, nameFilter, minGrade, maxGrade);
+    }
+
+    private static boolean accept(StudentTableModel.Columns c, int r, String name, float min, float max) {
+        if (!Float.isNaN(min) || !Float.isNaN(max)) {
+            float g = c.grade[r];
+            if (Float.isNaN(g) || g < min || g > max) return false;
+        }
+        return name.isEmpty() || c.nameContains(r, name);
+    }
+
+    // Row order for the sort column, ties kept in model order
+    private static int compare(StudentTableModel.Columns c, int column, boolean descending, int a, int b) {
+        int result;
+        switch (column) {
+            case 0: result = c.compareId(a, b); break;
+            case 1: result = c.compareName(a, b); break;
+            case 2: result = Float.compare(c.grade[a], c.grade[b]); break;
+            default: result = 0;
+        }
+        if (descending) result = -result;
+        return result != 0 ? result : Integer.compare(a, b);
+    }
+}
@@ -0,0 +1,194 @@
+// Programmer: Jurrien Julianda / Student ID: 25-0909-131
+// File: StudentSnapshotCache.java
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Binary cache of a parsed student CSV, stored next to it as <csv>.cache.
+ *
+ * The cache is keyed by the CSV's absolute path, size, last-modified time and a
+ * 64-bit hash of its content. When the key still matches, the rows are read back
+ * from the memory-mapped cache with bulk copies straight into the column arrays,
+ * without parsing any text. Layout (little-endian):
+ *
+ *   header : magic, version, path, size, mtime, content hash, rows, text chars
+ *   columns: idValue long[rows] | nameOffset int[rows] | nameLength int[rows]
+ *            | grade float[rows] | idDigits byte[rows] | text char[textChars]
+ *
+ * Every row takes the same fixed 21 bytes in the column sections; names and
+ * text IDs live in the shared text section, as in StudentTableModel.Columns.
+ * Sections are mapped a window at a time, as the CSV reader does, so caches of
+ * multi-GB rosters (past the 2 GB a single mapping can hold) work too.
+ */
+public class StudentSnapshotCache {
+
+    public static final String SUFFIX = ".cache";
+
+    private static final int MAGIC = 0x53524331; // "SRC1"
+    private static final int VERSION = 1;
+    private static final int HEADER_FIXED = 4 + 4 + 4 + 8 + 8 + 8 + 4 + 4; // all but the path
+    private static final int MAX_PATH_BYTES = 64 * 1024;
+
+    // Largest mapping made at once; a multiple of every element size
+    private static final long WINDOW = 64L * 1024 * 1024;
+
+    private StudentSnapshotCache() {}
+
+    /** Rows cached for csv, or null when there is no cache or it is stale. */
+    public static StudentTableModel.Columns load(File csv) {
+        File cache = cacheFile(csv);
+        if (!cache.isFile()) return null;
+        try (FileChannel ch = FileChannel.open(cache.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer head = readFully(ch, 0, 12);
+            if (head.getInt() != MAGIC || head.getInt() != VERSION) return null;
+            int pathBytes = head.getInt();
+            if (pathBytes < 0 || pathBytes > MAX_PATH_BYTES) return null;
+            head = readFully(ch, 12, pathBytes + HEADER_FIXED - 12);
+            byte[] path = new byte[pathBytes];
+            head.get(path);
+            long size = head.getLong();
+            long mtime = head.getLong();
+            long hash = head.getLong();
+            int rows = head.getInt();
+            int textChars = head.getInt();
+            if (!new String(path, StandardCharsets.UTF_8).equals(csv.getAbsolutePath())
+                    || size != csv.length() || mtime != csv.lastModified()
+                    || rows < 0 || textChars < 0
+                    || ch.size() != HEADER_FIXED + pathBytes + (long) rows * 21 + (long) textChars * 2
+                    || hash != contentHash(csv)) {
+                return null;
+            }
+
+            long[] idValue = new long[rows];
+            int[] nameOffset = new int[rows];
+            int[] nameLength = new int[rows];
+            float[] grade = new float[rows];
+            byte[] idDigits = new byte[rows];
+            char[] text = new char[textChars];
+            long pos = HEADER_FIXED + pathBytes;
+            pos = copy(ch, false, pos, idValue, rows, 8);
+            pos = copy(ch, false, pos, nameOffset, rows, 4);
+            pos = copy(ch, false, pos, nameLength, rows, 4);
+            pos = copy(ch, false, pos, grade, rows, 4);
+            pos = copy(ch, false, pos, idDigits, rows, 1);
+            copy(ch, false, pos, text, textChars, 2);
+            return StudentTableModel.Columns.wrap(idValue, idDigits, nameOffset, nameLength, grade, rows, text, textChars);
+        } catch (IOException | RuntimeException ex) {
+            // unreadable or truncated cache: just parse the CSV again
+            return null;
+        }
+    }
+
+    /**
+     * Writes the cache for csv. size and mtime are the values the CSV had when it was
+     * parsed; nothing is written if the file has changed since.
+     */
+    public static void write(File csv, long size, long mtime, StudentTableModel.Columns rows) throws IOException {
+        long hash = contentHash(csv);
+        if (csv.length() != size || csv.lastModified() != mtime) return;
+
+        byte[] path = csv.getAbsolutePath().getBytes(StandardCharsets.UTF_8);
+        if (path.length > MAX_PATH_BYTES) return;
+        int n = rows.size;
+        File cache = cacheFile(csv);
+        File tmp = new File(cache.getPath() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer head = ByteBuffer.allocate(HEADER_FIXED + path.length).order(ByteOrder.LITTLE_ENDIAN);
+            head.putInt(MAGIC).putInt(VERSION);
+            head.putInt(path.length).put(path);
+            head.putLong(size).putLong(mtime).putLong(hash);
+            head.putInt(n).putInt(rows.textUsed);
+            head.flip();
+            long pos = 0;
+            while (head.hasRemaining()) pos += ch.write(head, pos);
+            pos = copy(ch, true, pos, rows.idValue, n, 8);
+            pos = copy(ch, true, pos, rows.nameOffset, n, 4);
+            pos = copy(ch, true, pos, rows.nameLength, n, 4);
+            pos = copy(ch, true, pos, rows.grade, n, 4);
+            pos = copy(ch, true, pos, rows.idDigits, n, 1);
+            copy(ch, true, pos, rows.text, rows.textUsed, 2);
+            ch.force(true);
+        }
+        Files.move(tmp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /*
+     * Copies count elements of a column array (long[], int[], float[], byte[] or
+     * char[], width bytes each) to or from the file at pos, one mapped window at a
+     * time. Returns the file position just past them.
+     */
+    private static long copy(FileChannel ch, boolean write, long pos, Object array, int count, int width)
+            throws IOException {
+        FileChannel.MapMode mode = write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        int perWindow = (int) (WINDOW / width);
+        for (int i = 0; i < count; i += perWindow) {
+            int k = Math.min(perWindow, count - i);
+            MappedByteBuffer buf = ch.map(mode, pos, (long) k * width);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (array instanceof long[]) {
+                if (write) buf.asLongBuffer().put((long[]) array, i, k);
+                else buf.asLongBuffer().get((long[]) array, i, k);
+            } else if (array instanceof int[]) {
+                if (write) buf.asIntBuffer().put((int[]) array, i, k);
+                else buf.asIntBuffer().get((int[]) array, i, k);
+            } else if (array instanceof float[]) {
+                if (write) buf.asFloatBuffer().put((float[]) array, i, k);
+                else buf.asFloatBuffer().get((float[]) array, i, k);
+            } else if (array instanceof char[]) {
+                if (write) buf.asCharBuffer().put((char[]) array, i, k);
+                else buf.asCharBuffer().get((char[]) array, i, k);
+            } else {
+                if (write) buf.put((byte[]) array, i, k);
+                else buf.get((byte[]) array, i, k);
+            }
+            if (write) buf.force();
+            pos += (long) k * width;
+        }
+        return pos;
+    }
+
+    private static ByteBuffer readFully(FileChannel ch, long pos, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, pos + buf.position()) < 0) throw new IOException("cache is truncated");
+        }
+        buf.flip();
+        return buf;
+    }
+
+    public static File cacheFile(File csv) {
+        return new File(csv.getPath() + SUFFIX);
+    }
+
+    // 64-bit multiply/rotate hash over the mapped file, eight bytes at a time
+    static long contentHash(File f) throws IOException {
+        long h = 0x9E3779B97F4A7C15L;
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            long window = 256L * 1024 * 1024;
+            for (long pos = 0; pos < size; pos += window) {
+                long len = Math.min(window, size - pos);
+                ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len).order(ByteOrder.LITTLE_ENDIAN);
+                int i = 0;
+                int end8 = (int) len & ~7;
+                for (; i < end8; i += 8) {
+                    h = Long.rotateLeft((h ^ buf.getLong(i)) * 0xC2B2AE3D27D4EB4FL, 31);
+                }
+                for (; i < len; i++) {
+                    h = Long.rotateLeft((h ^ buf.get(i)) * 0x165667B19E3779F9L, 23);
+                }
+            }
+            return h ^ size;
+        }
+    }
+}
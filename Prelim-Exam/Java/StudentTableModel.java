@@ -0,0 +1,410 @@
+// Programmer: Jurrien Julianda / Student ID: 25-0909-131
+// File: StudentTableModel.java
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Column-oriented table model for the student records.
+ *
+ * Instead of one Vector of boxed Strings per row, every column lives in its own
+ * primitive array:
+ *  - ID    : numeric IDs (up to 17 digits) packed into a long plus their digit count,
+ *            so leading zeros survive; anything else is kept as text
+ *  - Name  : offset/length into one shared char buffer
+ *  - Grade : float, NaN when the row has no grade
+ *
+ * Strings are only created when the JTable asks for a visible cell.
+ *
+ * Student IDs are unique: a StudentIndex is kept in sync on every add, delete and
+ * load, and rows whose ID is already present are rejected.
+ */
+public class StudentTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {"ID", "Name", "Grade"};
+
+    private final Columns data = new Columns(1024);
+    private final StudentIndex index = new StudentIndex(data);
+    private int duplicatesSkipped;
+
+    @Override
+    public int getRowCount() { return data.size; }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int column) { return COLUMNS[column]; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case 0: return data.id(row);
+            case 1: return data.name(row);
+            default: return formatGrade(data.grade[row]);
+        }
+    }
+
+    /** Adds a row; returns false (and adds nothing) if the ID is already present. */
+    public boolean addRow(String id, String name, float grade) {
+        if (index.find(id) >= 0) return false;
+        data.add(id, name, grade);
+        index.put(data, data.size - 1, data.size - 1);
+        fireTableRowsInserted(data.size - 1, data.size - 1);
+        return true;
+    }
+
+    /** Appends all batches with a single insert event, skipping rows with a duplicate ID. */
+    public void appendAll(List<Columns> batches) {
+        int first = data.size;
+        int[] keep = new int[0];
+        for (Columns c : batches) {
+            if (keep.length < c.size) keep = new int[c.size];
+            int kept = 0;
+            for (int r = 0; r < c.size; r++) {
+                if (index.find(c, r) >= 0) continue;
+                index.put(c, r, data.size + kept);
+                keep[kept++] = r;
+            }
+            duplicatesSkipped += c.size - kept;
+            if (kept == c.size) data.append(c);
+            else data.appendRows(c, keep, kept);
+        }
+        if (data.size > first) fireTableRowsInserted(first, data.size - 1);
+    }
+
+    public void removeRow(int row) {
+        index.removed(row);
+        data.remove(row);
+        fireTableRowsDeleted(row, row);
+    }
+
+    /** Removes the row with this ID (the first row with this name if the ID is empty). */
+    public boolean removeStudent(String id, String name) {
+        int row = index.find(id);
+        if (row < 0 && id.isEmpty()) {
+            for (int r = 0; r < data.size; r++) {
+                if ((int) data.idValue[r] == 0 && data.idDigits[r] == Columns.TEXT_ID && data.name(r).equals(name)) {
+                    row = r;
+                    break;
+                }
+            }
+        }
+        if (row < 0) return false;
+        removeRow(row);
+        return true;
+    }
+
+    /** Independent copy of all rows, safe to hand to another thread. */
+    public Columns copyRows() {
+        return data.copy();
+    }
+
+    public void clear() {
+        int n = data.size;
+        if (n == 0) return;
+        data.clear();
+        index.clear();
+        fireTableRowsDeleted(0, n - 1);
+    }
+
+    public StudentIndex getIndex() {
+        return index;
+    }
+
+    // Live storage, for the sorter and index (EDT only)
+    Columns columns() {
+        return data;
+    }
+
+    /** Rows dropped by appendAll because their ID was already present. */
+    public int getDuplicatesSkipped() {
+        return duplicatesSkipped;
+    }
+
+    /** Text shown in the Grade column: whole numbers without decimals, empty when missing. */
+    public static String formatGrade(float grade) {
+        if (Float.isNaN(grade)) return "";
+        if (grade == Math.rint(grade) && Math.abs(grade) < 1e15f) return Long.toString((long) grade);
+        return Float.toString(grade);
+    }
+
+    /*
+     * Primitive column storage. Also used on its own by the loader to stage a batch
+     * of parsed rows before they are appended to the model in one go.
+     */
+    public static final class Columns {
+        // idDigits value for IDs stored as text; idValue then holds (offset << 32 | length)
+        static final byte TEXT_ID = -1;
+        private static final int MAX_PACKED_DIGITS = 17;
+
+        long[] idValue;
+        byte[] idDigits;
+        int[] nameOffset;
+        int[] nameLength;
+        float[] grade;
+        int size;
+
+        char[] text;
+        int textUsed;
+        int textGarbage;
+
+        public Columns(int capacity) {
+            capacity = Math.max(capacity, 16);
+            idValue = new long[capacity];
+            idDigits = new byte[capacity];
+            nameOffset = new int[capacity];
+            nameLength = new int[capacity];
+            grade = new float[capacity];
+            text = new char[capacity * 16];
+        }
+
+        // Adopts already filled arrays (used by the snapshot cache)
+        static Columns wrap(long[] idValue, byte[] idDigits, int[] nameOffset, int[] nameLength,
+                            float[] grade, int size, char[] text, int textUsed) {
+            Columns c = new Columns(0);
+            c.idValue = idValue;
+            c.idDigits = idDigits;
+            c.nameOffset = nameOffset;
+            c.nameLength = nameLength;
+            c.grade = grade;
+            c.size = size;
+            c.text = text;
+            c.textUsed = textUsed;
+            return c;
+        }
+
+        public int size() { return size; }
+
+        public void add(String id, String name, float g) {
+            ensureCapacity(size + 1);
+            int r = size;
+            int digits = packedDigits(id);
+            if (digits > 0) {
+                idValue[r] = Long.parseLong(id);
+                idDigits[r] = (byte) digits;
+            } else {
+                int off = appendText(id);
+                idValue[r] = ((long) off << 32) | id.length();
+                idDigits[r] = TEXT_ID;
+            }
+            nameOffset[r] = appendText(name);
+            nameLength[r] = name.length();
+            grade[r] = g;
+            size++;
+        }
+
+        /** Copies every row of other to the end of this storage. */
+        public void append(Columns other) {
+            int n = other.size;
+            if (n == 0) return;
+            ensureCapacity(size + n);
+            ensureText(textUsed + other.textUsed);
+            int base = textUsed;
+            System.arraycopy(other.text, 0, text, base, other.textUsed);
+            textUsed += other.textUsed;
+            textGarbage += other.textGarbage;
+
+            System.arraycopy(other.idValue, 0, idValue, size, n);
+            System.arraycopy(other.idDigits, 0, idDigits, size, n);
+            System.arraycopy(other.nameLength, 0, nameLength, size, n);
+            System.arraycopy(other.grade, 0, grade, size, n);
+            for (int i = 0; i < n; i++) {
+                int r = size + i;
+                nameOffset[r] = other.nameOffset[i] + base;
+                if (idDigits[r] == TEXT_ID) idValue[r] += (long) base << 32;
+            }
+            size += n;
+        }
+
+        /** Copies the listed rows of other (count entries of rows) to the end. */
+        public void appendRows(Columns other, int[] rows, int count) {
+            ensureCapacity(size + count);
+            for (int i = 0; i < count; i++) {
+                int src = rows[i];
+                int r = size++;
+                if (other.idDigits[src] == TEXT_ID) {
+                    int len = (int) other.idValue[src];
+                    int off = appendText(other.text, (int) (other.idValue[src] >>> 32), len);
+                    idValue[r] = ((long) off << 32) | len;
+                } else {
+                    idValue[r] = other.idValue[src];
+                }
+                idDigits[r] = other.idDigits[src];
+                nameOffset[r] = appendText(other.text, other.nameOffset[src], other.nameLength[src]);
+                nameLength[r] = other.nameLength[src];
+                grade[r] = other.grade[src];
+            }
+        }
+
+        public Columns copy() {
+            Columns c = new Columns(size);
+            c.append(this);
+            return c;
+        }
+
+        public void remove(int row) {
+            if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row " + row);
+            textGarbage += nameLength[row];
+            if (idDigits[row] == TEXT_ID) textGarbage += (int) idValue[row];
+            int tail = size - row - 1;
+            System.arraycopy(idValue, row + 1, idValue, row, tail);
+            System.arraycopy(idDigits, row + 1, idDigits, row, tail);
+            System.arraycopy(nameOffset, row + 1, nameOffset, row, tail);
+            System.arraycopy(nameLength, row + 1, nameLength, row, tail);
+            System.arraycopy(grade, row + 1, grade, row, tail);
+            size--;
+            if (textGarbage > 4096 && textGarbage > textUsed / 2) compactText();
+        }
+
+        public void clear() {
+            size = 0;
+            // a fresh buffer: shared views may still be reading the old one
+            text = new char[Math.min(text.length, 16 * 1024)];
+            textUsed = 0;
+            textGarbage = 0;
+        }
+
+        /**
+         * Copy of the per-row arrays that shares the text buffer. Safe to read from another
+         * thread: text of existing rows is never overwritten, only appended after or
+         * copied into a new buffer.
+         */
+        public Columns sharedView() {
+            Columns c = new Columns(0);
+            c.idValue = Arrays.copyOf(idValue, size);
+            c.idDigits = Arrays.copyOf(idDigits, size);
+            c.nameOffset = Arrays.copyOf(nameOffset, size);
+            c.nameLength = Arrays.copyOf(nameLength, size);
+            c.grade = Arrays.copyOf(grade, size);
+            c.size = size;
+            c.text = text;
+            c.textUsed = textUsed;
+            return c;
+        }
+
+        /** Orders IDs numerically (shorter first on ties), text IDs after numeric ones. */
+        public int compareId(int a, int b) {
+            boolean na = idDigits[a] > 0, nb = idDigits[b] > 0;
+            if (na && nb) {
+                int c = Long.compare(idValue[a], idValue[b]);
+                return c != 0 ? c : Integer.compare(idDigits[a], idDigits[b]);
+            }
+            if (na != nb) return na ? -1 : 1;
+            return compareText((int) (idValue[a] >>> 32), (int) idValue[a], (int) (idValue[b] >>> 32), (int) idValue[b]);
+        }
+
+        /** Case-insensitive name order. */
+        public int compareName(int a, int b) {
+            return compareText(nameOffset[a], nameLength[a], nameOffset[b], nameLength[b]);
+        }
+
+        /** True if the name of row r contains the already lower-cased string. */
+        public boolean nameContains(int r, String lower) {
+            int off = nameOffset[r], len = nameLength[r], n = lower.length();
+            if (n == 0) return true;
+            char first = lower.charAt(0);
+            for (int i = 0; i + n <= len; i++) {
+                if (Character.toLowerCase(text[off + i]) != first) continue;
+                int k = 1;
+                while (k < n && Character.toLowerCase(text[off + i + k]) == lower.charAt(k)) k++;
+                if (k == n) return true;
+            }
+            return false;
+        }
+
+        private int compareText(int oa, int la, int ob, int lb) {
+            int n = Math.min(la, lb);
+            for (int i = 0; i < n; i++) {
+                char ca = Character.toLowerCase(text[oa + i]);
+                char cb = Character.toLowerCase(text[ob + i]);
+                if (ca != cb) return ca - cb;
+            }
+            return la - lb;
+        }
+
+        public String id(int row) {
+            long v = idValue[row];
+            int digits = idDigits[row];
+            if (digits == TEXT_ID) return new String(text, (int) (v >>> 32), (int) v);
+            char[] buf = new char[digits];
+            for (int i = digits - 1; i >= 0; i--) {
+                buf[i] = (char) ('0' + (int) (v % 10));
+                v /= 10;
+            }
+            return new String(buf);
+        }
+
+        public String name(int row) {
+            return new String(text, nameOffset[row], nameLength[row]);
+        }
+
+        public float grade(int row) {
+            return grade[row];
+        }
+
+        // Number of digits if id can be packed into a long, otherwise 0
+        private static int packedDigits(String id) {
+            int n = id.length();
+            if (n == 0 || n > MAX_PACKED_DIGITS) return 0;
+            for (int i = 0; i < n; i++) {
+                char ch = id.charAt(i);
+                if (ch < '0' || ch > '9') return 0;
+            }
+            return n;
+        }
+
+        private int appendText(String s) {
+            int n = s.length();
+            ensureText(textUsed + n);
+            s.getChars(0, n, text, textUsed);
+            int off = textUsed;
+            textUsed += n;
+            return off;
+        }
+
+        private int appendText(char[] src, int from, int n) {
+            ensureText(textUsed + n);
+            System.arraycopy(src, from, text, textUsed, n);
+            int off = textUsed;
+            textUsed += n;
+            return off;
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed <= idValue.length) return;
+            int cap = Math.max(needed, idValue.length + (idValue.length >> 1));
+            idValue = Arrays.copyOf(idValue, cap);
+            idDigits = Arrays.copyOf(idDigits, cap);
+            nameOffset = Arrays.copyOf(nameOffset, cap);
+            nameLength = Arrays.copyOf(nameLength, cap);
+            grade = Arrays.copyOf(grade, cap);
+        }
+
+        private void ensureText(int needed) {
+            if (needed <= text.length) return;
+            text = Arrays.copyOf(text, Math.max(needed, text.length + (text.length >> 1)));
+        }
+
+        // Drops the text of deleted rows; live strings are copied into a fresh buffer
+        private void compactText() {
+            char[] fresh = new char[Math.max(16, textUsed - textGarbage + 1024)];
+            int used = 0;
+            for (int r = 0; r < size; r++) {
+                if (idDigits[r] == TEXT_ID) {
+                    int len = (int) idValue[r];
+                    System.arraycopy(text, (int) (idValue[r] >>> 32), fresh, used, len);
+                    idValue[r] = ((long) used << 32) | len;
+                    used += len;
+                }
+                System.arraycopy(text, nameOffset[r], fresh, used, nameLength[r]);
+                nameOffset[r] = used;
+                used += nameLength[r];
+            }
+            text = fresh;
+            textUsed = used;
+            textGarbage = 0;
+        }
+    }
+}
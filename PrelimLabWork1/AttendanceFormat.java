@@ -0,0 +1,174 @@
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * Binary attendance log (attendance_records.bin).
+ *
+ *   file header : int magic "ATT1" | short version | short reserved          (8 bytes)
+ *   course entry: byte 1 | short courseId | short len | UTF-8 course/year
+ *   check-in    : byte 2 | short courseId | long timeInMillis | 8 signature bytes
+ *                 | short len | UTF-8 name                         (21 bytes + name)
+ *   old check-in: byte 3 | short courseId | 8 signature bytes | short len | UTF-8 name
+ *                 | short len | UTF-8 Time In text     (imported text the parser could not read)
+ *   raw check-in: byte 5 | short courseId | long timeInMillis or NO_TIME | short len
+ *                 | UTF-8 signature | short len | UTF-8 name | short len | UTF-8 Time In
+ *                 text (empty when timeInMillis is set)
+ *
+ * The raw form is only written for signatures that do not fit the 8 ASCII bytes
+ * (longer, non-ASCII or holding a NUL), so every record reads back exactly as saved.
+ * Course/year values are stored once, in a course entry written just before the
+ * first check-in that uses them. All numbers are big-endian. A record cut short by a
+ * crash is ignored by readers and trimmed by the next writer.
+ * Compatible with Java 8+
+ */
+public final class AttendanceFormat {
+
+    public static final int MAGIC = 0x41545431; // "ATT1"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 8;
+
+    public static final byte COURSE = 1;
+    public static final byte CHECK_IN = 2;
+    public static final byte CHECK_IN_TEXT_TIME = 3;
+    public static final byte CHECK_IN_RAW = 5; // 4 is the segment footer (AttendanceSegments.FOOTER)
+
+    public static final int SIGNATURE_BYTES = 8;
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    // Same layout the Time In button has always shown
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy hh:mm a");
+    private static final DateTimeFormatter TIME_FORMAT_EN = TIME_FORMAT.withLocale(Locale.ENGLISH);
+
+    private AttendanceFormat() {}
+
+    public static String formatTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()).format(TIME_FORMAT);
+    }
+
+    /** Epoch millis for a Time In string, or NO_TIME if it is not in the form's format. */
+    public static long parseTime(String text) {
+        for (DateTimeFormatter f : new DateTimeFormatter[]{TIME_FORMAT, TIME_FORMAT_EN}) {
+            try {
+                return LocalDateTime.parse(text.trim(), f).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            } catch (DateTimeParseException ignored) {
+                // try the next locale
+            }
+        }
+        return NO_TIME;
+    }
+
+    public static void writeHeader(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(0);
+    }
+
+    /** Signature as exactly SIGNATURE_BYTES ASCII bytes (zero padded). */
+    static byte[] signatureBytes(String signature) {
+        byte[] b = new byte[SIGNATURE_BYTES];
+        for (int i = 0; i < b.length && i < signature.length(); i++) {
+            char c = signature.charAt(i);
+            b[i] = (byte) (c < 0x80 ? c : '?');
+        }
+        return b;
+    }
+
+    /** True if signatureBytes keeps the whole signature (at most 8 ASCII characters, no NUL). */
+    static boolean fitsSignatureBytes(String signature) {
+        if (signature.length() > SIGNATURE_BYTES) return false;
+        for (int i = 0; i < signature.length(); i++) {
+            char c = signature.charAt(i);
+            if (c == 0 || c >= 0x80) return false;
+        }
+        return true;
+    }
+
+    static String signatureString(byte[] b) {
+        int n = 0;
+        while (n < b.length && b[n] != 0) n++;
+        return new String(b, 0, n, StandardCharsets.US_ASCII);
+    }
+
+    /** Writes records, adding a course entry the first time each course/year is used. */
+    public static final class Encoder {
+        private final Map<String, Integer> courses = new HashMap<>();
+        private final List<String> byId = new ArrayList<>();
+
+        /** knownCourses: the course table of the log being appended to, in id order. */
+        public Encoder(List<String> knownCourses) {
+            for (String c : knownCourses) {
+                courses.put(c, byId.size());
+                byId.add(c);
+            }
+        }
+
+        public int courseCount() {
+            return byId.size();
+        }
+
+        /** Forgets courses added after the table had count entries (their entries never reached the file). */
+        public void truncateCourses(int count) {
+            while (byId.size() > count) courses.remove(byId.remove(byId.size() - 1));
+        }
+
+        public void write(AttendanceRecord r, DataOutput out) throws IOException {
+            // encode and check every field before writing anything
+            byte[] name = utf8(r.name);
+            byte[] time = r.timeText != null ? utf8(r.timeText) : null;
+            Integer id = courses.get(r.course);
+            if (id == null) {
+                byte[] course = utf8(r.course);
+                if (byId.size() > 0xFFFF) throw new IOException("Too many distinct Course/Year values");
+                id = byId.size();
+                out.writeByte(COURSE);
+                out.writeShort(id);
+                writeBytes(out, course);
+                courses.put(r.course, id);
+                byId.add(r.course);
+            }
+            if (!fitsSignatureBytes(r.signature)) {
+                byte[] sig = utf8(r.signature);
+                out.writeByte(CHECK_IN_RAW);
+                out.writeShort(id);
+                out.writeLong(r.timeIn);
+                writeBytes(out, sig);
+                writeBytes(out, name);
+                writeBytes(out, time != null ? time : new byte[0]);
+            } else if (time == null) {
+                out.writeByte(CHECK_IN);
+                out.writeShort(id);
+                out.writeLong(r.timeIn);
+                out.write(signatureBytes(r.signature));
+                writeBytes(out, name);
+            } else {
+                out.writeByte(CHECK_IN_TEXT_TIME);
+                out.writeShort(id);
+                out.write(signatureBytes(r.signature));
+                writeBytes(out, name);
+                writeBytes(out, time);
+            }
+        }
+
+        private static byte[] utf8(String s) throws IOException {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            if (b.length > 0xFFFF) throw new IOException("Field longer than 65535 bytes");
+            return b;
+        }
+
+        private static void writeBytes(DataOutput out, byte[] b) throws IOException {
+            out.writeShort(b.length);
+            out.write(b);
+        }
+    }
+}
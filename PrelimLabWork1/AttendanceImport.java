@@ -0,0 +1,466 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+
+/*
+ * Bulk import of roll sheets into the attendance log.
+ *
+ *   java AttendanceImport roster.csv [attendance_records.bin] ["Jan 05, 2026 08:00 AM"] [--restart]
+ *
+ * One check-in per line: Name, Course/Year and an optional Time In, separated by
+ * tabs or commas ("double quotes" around a field that has a comma). A first line
+ * starting with "Name" is a header. Rows without a Time In get the one given on the
+ * command line (default: now); every row gets a new E-Signature.
+ *
+ * The work is split into stages, each on its own thread and joined by small bounded
+ * queues, so reading the sheet, checking it and writing the log overlap:
+ *
+ *   read      lines of the sheet, in chunks of CHUNK_ROWS
+ *   validate  the Save button's rules: Name and Course/Year must not be empty
+ *   stamp     Time In and E-Signature for the whole chunk (SignatureGenerator)
+ *   write     the chunk's records in one go through AttendanceWriter
+ *
+ * Rejected rows go to roster.csv.rejected with their line number and reason.
+ *
+ * Before each chunk is written, roster.csv.import records how far the import got
+ * and the Time In and signature given to every row of that chunk. If the import is
+ * interrupted, running it again resumes from there: rows of that chunk whose
+ * signature is already in the log were stored and are skipped, the rest are written
+ * with the same stamps, so no row is lost or stored twice. --restart ignores the
+ * checkpoint. The checkpoint is deleted when the import finishes.
+ * Compatible with Java 8+
+ */
+public class AttendanceImport {
+
+    static final int CHUNK_ROWS = 4096;
+    private static final int MAGIC = 0x41545449; // "ATTI"
+    private static final int MAX_FIELD_BYTES = 0xFFFF;
+
+    // One line of the sheet
+    private static final class Row {
+        final long line;
+        final String text;
+        String name, course, timeText;
+        String rejected;
+        long timeIn;
+        int signature;
+
+        Row(long line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+    }
+
+    // Rows between two byte offsets of the sheet
+    private static final class Chunk {
+        final long start, end;
+        final long firstLine, endLine;
+        final List<Row> rows;
+        // stamps kept from an interrupted run (resumed chunk only)
+        long[] times;
+        int[] signatures;
+
+        Chunk(long start, long end, long firstLine, long endLine, List<Row> rows) {
+            this.start = start;
+            this.end = end;
+            this.firstLine = firstLine;
+            this.endLine = endLine;
+            this.rows = rows;
+        }
+    }
+
+    private static final Chunk END = new Chunk(-1, -1, -1, -1, null);
+
+    // Where the import stands; written to the checkpoint file
+    private static final class Checkpoint {
+        long inputLength, inputModified;
+        long offset, line = 1;
+        long imported, rejected, rejectsLength;
+        // the chunk being written: its end and the stamps of its valid rows
+        long pendingEnd = -1;
+        long[] times;
+        int[] signatures;
+    }
+
+    private final File input;
+    private final File log;
+    private final long defaultTime;
+    private final File checkpointFile;
+    private final File rejectsFile;
+    private final SignatureGenerator signatures;
+    private volatile Throwable failure;
+
+    public AttendanceImport(File input, File log, long defaultTime) throws IOException {
+        this.input = input;
+        this.log = log;
+        this.defaultTime = defaultTime;
+        this.checkpointFile = new File(input.getPath() + ".import");
+        this.rejectsFile = new File(input.getPath() + ".rejected");
+        this.signatures = SignatureGenerator.load(log);
+    }
+
+    public static void main(String[] args) {
+        List<String> rest = new ArrayList<>(Arrays.asList(args));
+        boolean restart = rest.remove("--restart");
+        if (rest.isEmpty() || rest.size() > 3) {
+            System.err.println("Usage: java AttendanceImport <roster.csv> [attendance_records.bin] [\"Time In\"] [--restart]");
+            System.exit(2);
+        }
+        long time = System.currentTimeMillis();
+        if (rest.size() > 2) {
+            time = AttendanceFormat.parseTime(rest.get(2));
+            if (time == AttendanceFormat.NO_TIME) {
+                System.err.println("Time In must look like \"" + AttendanceFormat.formatTime(System.currentTimeMillis()) + "\"");
+                System.exit(2);
+            }
+        }
+        try {
+            AttendanceImport im = new AttendanceImport(new File(rest.get(0)),
+                    new File(rest.size() > 1 ? rest.get(1) : "attendance_records.bin"), time);
+            if (restart) Files.deleteIfExists(im.checkpointFile.toPath());
+            long start = System.nanoTime();
+            Checkpoint done = im.run();
+            System.err.printf("Imported %d check-ins in %.2f s, %d rows rejected%s%n", done.imported,
+                    (System.nanoTime() - start) / 1e9, done.rejected,
+                    done.rejected > 0 ? " (see " + im.rejectsFile.getName() + ")" : "");
+        } catch (IOException ex) {
+            System.err.println("Import failed: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Imports the whole sheet (resuming an interrupted import). Returns the final counts. */
+    Checkpoint run() throws IOException {
+        Checkpoint cp = readCheckpoint();
+        if (cp.offset > 0 || cp.pendingEnd >= 0) {
+            System.err.println("Resuming " + input.getName() + " at line " + cp.line);
+        }
+        final BlockingQueue<Chunk> read = new ArrayBlockingQueue<>(4);
+        final BlockingQueue<Chunk> validated = new ArrayBlockingQueue<>(4);
+        final BlockingQueue<Chunk> stamped = new ArrayBlockingQueue<>(4);
+        final Checkpoint from = cp;
+        Thread[] stages = {
+                stage("import-read", null, read, (none, out) -> readSheet(from, out)),
+                stage("import-validate", read, validated, (c, out) -> {
+                    for (Row r : c.rows) validate(r);
+                    out.put(c);
+                }),
+                stage("import-stamp", validated, stamped, (c, out) -> {
+                    stamp(c);
+                    out.put(c);
+                })
+        };
+        try (AttendanceWriter writer = new AttendanceWriter(log, 0, AttendanceWriter.Durability.SYNC);
+             RandomAccessFile rejects = new RandomAccessFile(rejectsFile, "rw")) {
+            rejects.setLength(cp.rejectsLength);
+            rejects.seek(cp.rejectsLength);
+            for (Thread t : stages) t.start();
+            Chunk c;
+            while ((c = stamped.take()) != END) write(c, cp, writer, rejects);
+            if (failure instanceof IOException) throw (IOException) failure;
+            if (failure != null) throw new IOException(failure.toString(), failure);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof IOException ? (IOException) ex.getCause() : new IOException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", ex);
+        } finally {
+            for (Thread t : stages) t.interrupt();
+        }
+        Files.deleteIfExists(checkpointFile.toPath());
+        if (cp.rejected == 0) Files.deleteIfExists(rejectsFile.toPath());
+        return cp;
+    }
+
+    private interface Stage {
+        void run(Chunk c, BlockingQueue<Chunk> out) throws Exception;
+    }
+
+    // A stage thread: takes chunks until END and passes END on, also after a failure
+    private Thread stage(String name, final BlockingQueue<Chunk> in, final BlockingQueue<Chunk> out, final Stage work) {
+        Thread t = new Thread(() -> {
+            try {
+                if (in == null) {
+                    work.run(null, out);
+                } else {
+                    Chunk c;
+                    while ((c = in.take()) != END) {
+                        if (failure == null) work.run(c, out);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                return;
+            } catch (Throwable ex) {
+                if (failure == null) failure = ex;
+                // keep draining so the stages before this one are not left blocked
+                if (in != null) {
+                    try {
+                        while (in.take() != END) { /* discard */ }
+                    } catch (InterruptedException stop) {
+                        return;
+                    }
+                }
+            }
+            try {
+                out.put(END);
+            } catch (InterruptedException ignored) {
+                // the import is being torn down
+            }
+        }, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    // ---- read ----
+
+    private void readSheet(Checkpoint cp, BlockingQueue<Chunk> out) throws IOException, InterruptedException {
+        try (FileChannel ch = FileChannel.open(input.toPath(), StandardOpenOption.READ)) {
+            ch.position(cp.offset);
+            InputStream in = new BufferedInputStream(Channels.newInputStream(ch), 1 << 20);
+            long offset = cp.offset, line = cp.line;
+            // the chunk that was being written when the last run stopped ends where it did then
+            long stopAt = cp.pendingEnd;
+            byte[] buf = new byte[256];
+            while (true) {
+                long start = offset, firstLine = line;
+                List<Row> rows = new ArrayList<>();
+                int b = 0;
+                while (stopAt >= 0 ? offset < stopAt : rows.size() < CHUNK_ROWS) {
+                    int n = 0;
+                    while ((b = in.read()) >= 0) {
+                        offset++;
+                        if (b == '\n') break;
+                        if (n == buf.length) buf = Arrays.copyOf(buf, n * 2);
+                        buf[n++] = (byte) b;
+                    }
+                    if (b < 0 && n == 0) break;
+                    if (n > 0 && buf[n - 1] == '\r') n--;
+                    int from = line == 1 && n >= 3 && (buf[0] & 0xFF) == 0xEF && (buf[1] & 0xFF) == 0xBB && (buf[2] & 0xFF) == 0xBF ? 3 : 0;
+                    String text = new String(buf, from, n - from, StandardCharsets.UTF_8);
+                    if (!text.trim().isEmpty() && !(line == 1 && isHeader(text))) rows.add(new Row(line, text));
+                    line++;
+                    if (b < 0) break;
+                }
+                Chunk c = new Chunk(start, offset, firstLine, line, rows);
+                if (stopAt >= 0) {
+                    if (offset != stopAt) throw new IOException(input + " changed since the import was interrupted");
+                    c.times = cp.times;
+                    c.signatures = cp.signatures;
+                    stopAt = -1;
+                }
+                if (offset > start) out.put(c);
+                if (b < 0) break;
+            }
+        }
+    }
+
+    private static boolean isHeader(String line) {
+        return line.regionMatches(true, 0, "Name", 0, 4) || line.regionMatches(true, 0, "\"Name", 0, 5);
+    }
+
+    // ---- validate ----
+
+    private void validate(Row r) {
+        List<String> f = split(r.text);
+        if (f.size() == 4 && r.text.indexOf('\t') < 0) {
+            // an unquoted Time In in the form's format ("Jan 05, 2026 08:00 AM") has a comma of its own
+            f.set(2, f.get(2) + ", " + f.remove(3));
+        }
+        if (f.size() > 3) {
+            r.rejected = "expected Name, Course/Year[, Time In]";
+            return;
+        }
+        r.name = f.get(0);
+        r.course = f.size() > 1 ? f.get(1) : "";
+        r.timeText = f.size() > 2 && !f.get(2).trim().isEmpty() ? f.get(2) : null;
+        // same checks as the Save button
+        if (r.name.isEmpty()) r.rejected = "missing Name";
+        else if (r.course.isEmpty()) r.rejected = "missing Course/Year";
+        else if (utf8Length(r.name) > MAX_FIELD_BYTES || utf8Length(r.course) > MAX_FIELD_BYTES) r.rejected = "field too long";
+        else if (r.timeText != null && AttendanceFormat.parseTime(r.timeText) == AttendanceFormat.NO_TIME) {
+            r.rejected = "Time In not in the form's format";
+        }
+    }
+
+    // Fields separated by tabs, or by commas when the line has no tab; "quoted" fields may hold either
+    static List<String> split(String line) {
+        char sep = line.indexOf('\t') >= 0 ? '\t' : ',';
+        List<String> out = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.toString().trim().isEmpty()) {
+                field.setLength(0);
+                quoted = true;
+            } else if (c == sep) {
+                out.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        out.add(field.toString().trim());
+        return out;
+    }
+
+    private static int utf8Length(String s) {
+        return s.length() * 3 <= MAX_FIELD_BYTES ? s.length() : s.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    // ---- stamp ----
+
+    private void stamp(Chunk c) throws IOException {
+        if (c.signatures != null) {
+            // the chunk an interrupted run was writing: same stamps as then
+            int i = 0;
+            for (Row r : c.rows) {
+                if (r.rejected != null) continue;
+                if (i == c.signatures.length) throw new IOException(input + " changed since the import was interrupted");
+                r.timeIn = c.times[i];
+                r.signature = c.signatures[i++];
+                // a signature already in the log means the row was stored
+                if (!signatures.register(r.signature)) r.rejected = "";
+            }
+            if (i != c.signatures.length) throw new IOException(input + " changed since the import was interrupted");
+            return;
+        }
+        for (Row r : c.rows) {
+            if (r.rejected != null) continue;
+            r.timeIn = r.timeText != null ? AttendanceFormat.parseTime(r.timeText) : defaultTime;
+            r.signature = signatures.nextInt();
+        }
+    }
+
+    // ---- write ----
+
+    private void write(Chunk c, Checkpoint cp, AttendanceWriter writer, RandomAccessFile rejects)
+            throws IOException, InterruptedException, ExecutionException {
+        List<AttendanceRecord> records = new ArrayList<>(c.rows.size());
+        int valid = 0;
+        for (Row r : c.rows) if (r.rejected == null || r.rejected.isEmpty()) valid++;
+        long[] times = new long[valid];
+        int[] sigs = new int[valid];
+        int i = 0;
+        StringBuilder rejected = new StringBuilder();
+        int rejectedCount = 0;
+        for (Row r : c.rows) {
+            if (r.rejected == null || r.rejected.isEmpty()) {
+                times[i] = r.timeIn;
+                sigs[i++] = r.signature;
+                // "" marks a row the interrupted run already stored
+                if (r.rejected == null) {
+                    records.add(new AttendanceRecord(r.name, r.course, r.timeIn, SignatureGenerator.toHex(r.signature)));
+                }
+            } else {
+                rejectedCount++;
+                rejected.append("line ").append(r.line).append(": ").append(r.rejected).append(": ").append(r.text).append('\n');
+            }
+        }
+
+        // remember the stamps before any of them reach the log
+        cp.pendingEnd = c.end;
+        cp.times = times;
+        cp.signatures = sigs;
+        writeCheckpoint(cp);
+
+        if (rejected.length() > 0) rejects.write(rejected.toString().getBytes(StandardCharsets.UTF_8));
+        writer.appendAll(records).get();
+
+        cp.offset = c.end;
+        cp.line = c.endLine;
+        cp.imported += valid;
+        cp.rejected += rejectedCount;
+        cp.rejectsLength = rejects.getFilePointer();
+        cp.pendingEnd = -1;
+        cp.times = null;
+        cp.signatures = null;
+    }
+
+    // ---- checkpoint ----
+
+    private Checkpoint readCheckpoint() throws IOException {
+        Checkpoint cp = new Checkpoint();
+        cp.inputLength = input.length();
+        cp.inputModified = input.lastModified();
+        if (!checkpointFile.isFile()) return cp;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(checkpointFile)))) {
+            if (in.readInt() != MAGIC) throw new IOException(checkpointFile + " is not an import checkpoint");
+            if (in.readLong() != cp.inputLength || in.readLong() != cp.inputModified) {
+                throw new IOException(input + " changed since the import was interrupted; run again with --restart");
+            }
+            if (!in.readUTF().equals(log.getAbsolutePath())) {
+                throw new IOException("the interrupted import was writing to another log; run again with --restart");
+            }
+            cp.offset = in.readLong();
+            cp.line = in.readLong();
+            cp.imported = in.readLong();
+            cp.rejected = in.readLong();
+            cp.rejectsLength = in.readLong();
+            cp.pendingEnd = in.readLong();
+            int n = in.readInt();
+            cp.times = new long[n];
+            cp.signatures = new int[n];
+            for (int i = 0; i < n; i++) {
+                cp.times[i] = in.readLong();
+                cp.signatures[i] = in.readInt();
+            }
+        }
+        return cp;
+    }
+
+    // Written to a temporary file, forced and moved into place, so it is always whole
+    private void writeCheckpoint(Checkpoint cp) throws IOException {
+        File tmp = new File(checkpointFile.getPath() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeLong(cp.inputLength);
+            out.writeLong(cp.inputModified);
+            out.writeUTF(log.getAbsolutePath());
+            out.writeLong(cp.offset);
+            out.writeLong(cp.line);
+            out.writeLong(cp.imported);
+            out.writeLong(cp.rejected);
+            out.writeLong(cp.rejectsLength);
+            out.writeLong(cp.pendingEnd);
+            int n = cp.signatures == null ? 0 : cp.signatures.length;
+            out.writeInt(n);
+            for (int i = 0; i < n; i++) {
+                out.writeLong(cp.times[i]);
+                out.writeInt(cp.signatures[i]);
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp.toPath(), checkpointFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,96 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Load test for AttendanceServer: simulates many kiosks checking students in.
+ *
+ *   java AttendanceLoadGenerator [host] [port] [kiosks] [seconds]
+ *                                 (defaults: 127.0.0.1 5150 50 10)
+ *
+ * Each kiosk keeps one connection open and sends a check-in as soon as the previous
+ * one is answered. Reports sustained check-ins per second and the latency of each
+ * acknowledged check-in (p50, p99, max); BUSY and ERR replies are counted apart.
+ * Compatible with Java 8+
+ */
+public class AttendanceLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 5150;
+        int kiosks = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        final long end = System.nanoTime() + seconds * 1_000_000_000L;
+        final long[][] latencies = new long[kiosks][];
+        final int[] counts = new int[kiosks];
+        final AtomicLong busy = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        Thread[] threads = new Thread[kiosks];
+        for (int k = 0; k < kiosks; k++) {
+            final int kiosk = k;
+            threads[k] = new Thread(() -> {
+                long[] lat = new long[1024];
+                int n = 0;
+                try (Socket s = new Socket(host, port);
+                     BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                     Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+                    s.setTcpNoDelay(true);
+                    for (int i = 0; System.nanoTime() < end; i++) {
+                        long t0 = System.nanoTime();
+                        out.write("Student " + kiosk + "-" + i + "\tBSIT " + (1 + i % 4) + "\n");
+                        out.flush();
+                        String reply = in.readLine();
+                        long t = System.nanoTime() - t0;
+                        if (reply == null) break;
+                        if (reply.startsWith("OK")) {
+                            if (n == lat.length) lat = Arrays.copyOf(lat, n * 2);
+                            lat[n++] = t;
+                        } else if (reply.startsWith("BUSY")) {
+                            busy.incrementAndGet();
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                    }
+                } catch (IOException ex) {
+                    System.err.println("Kiosk " + kiosk + ": " + ex.getMessage());
+                }
+                latencies[kiosk] = lat;
+                counts[kiosk] = n;
+            });
+            threads[k].start();
+        }
+        long start = System.nanoTime();
+        for (Thread t : threads) t.join();
+        double secs = (System.nanoTime() - start) / 1e9;
+
+        int total = 0;
+        for (int c : counts) total += c;
+        long[] all = new long[total];
+        int pos = 0;
+        for (int k = 0; k < kiosks; k++) {
+            System.arraycopy(latencies[k], 0, all, pos, counts[k]);
+            pos += counts[k];
+        }
+        Arrays.sort(all);
+        System.out.printf("Kiosks:      %d%n", kiosks);
+        System.out.printf("Check-ins:   %d stored, %d busy, %d errors in %.1f s%n", total, busy.get(), errors.get(), secs);
+        System.out.printf("Throughput:  %.0f check-ins/s%n", total / secs);
+        if (total > 0) {
+            System.out.printf("Latency:     p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, all[total - 1] / 1e6);
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+    }
+}
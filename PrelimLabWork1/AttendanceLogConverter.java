@@ -0,0 +1,95 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+
+/*
+ * Converts an old text attendance log (five lines per check-in) into the binary
+ * format, one record at a time so the file size does not matter.
+ *
+ *   java AttendanceLogConverter attendance_records.txt attendance_records.bin
+ *
+ * Blocks are read field by field ("Name:", "Course/Year:", "Time In:", "E-Signature:")
+ * and end at the dashed separator; a missing field is stored as empty. The output is
+ * written to a temporary file and moved into place at the end, so a failed import
+ * never leaves half a log behind.
+ * Compatible with Java 8+
+ */
+public class AttendanceLogConverter {
+
+    private AttendanceLogConverter() {}
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: java AttendanceLogConverter <attendance_records.txt> <attendance_records.bin>");
+            System.exit(2);
+        }
+        try {
+            long start = System.nanoTime();
+            int count = convert(new File(args[0]), new File(args[1]));
+            System.err.printf("Converted %d records in %.2f s (%d -> %d bytes)%n", count,
+                    (System.nanoTime() - start) / 1e9, new File(args[0]).length(), new File(args[1]).length());
+        } catch (IOException ex) {
+            System.err.println("Conversion failed: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Writes every record of the text log to a new binary log. Returns the record count. */
+    public static int convert(File text, File binary) throws IOException {
+        File tmp = new File(binary.getPath() + ".tmp");
+        int count = 0;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(text), StandardCharsets.UTF_8));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+            AttendanceFormat.writeHeader(out);
+            AttendanceFormat.Encoder encoder = new AttendanceFormat.Encoder(Collections.<String>emptyList());
+            String name = null, course = null, time = null, sig = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("Name: ")) {
+                    // a new block without a separator before it
+                    if (name != null) { write(encoder, out, name, course, time, sig); count++; course = time = sig = null; }
+                    name = line.substring(6);
+                } else if (line.startsWith("Course/Year: ")) {
+                    course = line.substring(13);
+                } else if (line.startsWith("Time In: ")) {
+                    time = line.substring(9);
+                } else if (line.startsWith("E-Signature: ")) {
+                    sig = line.substring(13);
+                } else if (line.startsWith("---")) {
+                    if (name != null || course != null || time != null || sig != null) {
+                        write(encoder, out, name, course, time, sig);
+                        count++;
+                    }
+                    name = course = time = sig = null;
+                }
+            }
+            if (name != null || course != null || time != null || sig != null) {
+                write(encoder, out, name, course, time, sig);
+                count++;
+            }
+        } catch (IOException ex) {
+            tmp.delete();
+            throw ex;
+        }
+        Files.move(tmp.toPath(), binary.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return count;
+    }
+
+    private static void write(AttendanceFormat.Encoder encoder, DataOutputStream out,
+                              String name, String course, String time, String sig) throws IOException {
+        encoder.write(AttendanceRecord.fromText(orEmpty(name), orEmpty(course), orEmpty(time), orEmpty(sig)), out);
+    }
+
+    private static String orEmpty(String s) {
+        return s != null ? s : "";
+    }
+}
@@ -0,0 +1,171 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Streams the records of a binary attendance log (see AttendanceFormat).
+ *
+ * next() returns one check-in at a time and null at the end of the file or at a
+ * segment footer; a last record cut short by a crash counts as the end. Run it on
+ * its own to print a log (all of its segments, oldest first) in the familiar
+ * attendance_records.txt layout:
+ *
+ *   java AttendanceLogReader attendance_records.bin
+ *
+ * Compatible with Java 8+
+ */
+public class AttendanceLogReader implements Closeable {
+
+    private final DataInputStream in;
+    private final List<String> courses = new ArrayList<>();
+    private long validLength;
+    // Bytes of the record being read
+    private int recordBytes;
+    private boolean sealed;
+
+    public AttendanceLogReader(File file) throws IOException {
+        this(new BufferedInputStream(new FileInputStream(file), 64 * 1024), file.getPath());
+    }
+
+    /** Reader over log bytes from any stream (e.g. an inflated segment); name is used in errors. */
+    public AttendanceLogReader(InputStream stream, String file) throws IOException {
+        in = new DataInputStream(stream instanceof BufferedInputStream ? stream : new BufferedInputStream(stream, 64 * 1024));
+        try {
+            if (in.readInt() != AttendanceFormat.MAGIC) throw new IOException(file + " is not an attendance log");
+            int version = in.readShort();
+            if (version != AttendanceFormat.VERSION) throw new IOException("Unsupported attendance log version " + version);
+            in.readShort();
+        } catch (IOException ex) {
+            in.close();
+            throw ex instanceof EOFException ? new IOException(file + " is not an attendance log") : ex;
+        }
+        validLength = AttendanceFormat.HEADER_SIZE;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: java AttendanceLogReader <attendance_records.bin>");
+            System.exit(2);
+        }
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        File log = new File(args[0]);
+        try {
+            for (AttendanceSegments.Segment segment : AttendanceSegments.sealed(log)) {
+                try (AttendanceLogReader reader = segment.open()) {
+                    reader.printAll(out);
+                }
+            }
+            if (log.isFile()) {
+                try (AttendanceLogReader reader = new AttendanceLogReader(log)) {
+                    reader.printAll(out);
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("Cannot read " + args[0] + ": " + ex.getMessage());
+            System.exit(1);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /** The next check-in, or null at the end of the log. */
+    public AttendanceRecord next() throws IOException {
+        try {
+            while (true) {
+                int type = in.read();
+                if (type < 0) return null;
+                if (type == AttendanceSegments.FOOTER) {
+                    sealed = true;
+                    return null;
+                }
+                int courseId = in.readUnsignedShort();
+                recordBytes = 3;
+                if (type == AttendanceFormat.COURSE) {
+                    String course = readString();
+                    if (courseId != courses.size()) throw new IOException("Corrupt attendance log at offset " + validLength);
+                    courses.add(course);
+                    validLength += recordBytes;
+                    continue;
+                }
+                if (courseId >= courses.size()) throw new IOException("Corrupt attendance log at offset " + validLength);
+                AttendanceRecord r;
+                if (type == AttendanceFormat.CHECK_IN) {
+                    long time = in.readLong();
+                    recordBytes += 8;
+                    String sig = readSignature();
+                    String name = readString();
+                    r = new AttendanceRecord(name, courses.get(courseId), time, sig);
+                } else if (type == AttendanceFormat.CHECK_IN_TEXT_TIME) {
+                    String sig = readSignature();
+                    String name = readString();
+                    String time = readString();
+                    r = new AttendanceRecord(name, courses.get(courseId), AttendanceFormat.NO_TIME, time, sig);
+                } else if (type == AttendanceFormat.CHECK_IN_RAW) {
+                    long time = in.readLong();
+                    recordBytes += 8;
+                    String sig = readString();
+                    String name = readString();
+                    String text = readString();
+                    r = new AttendanceRecord(name, courses.get(courseId), time,
+                            time == AttendanceFormat.NO_TIME ? text : null, sig);
+                } else {
+                    throw new IOException("Corrupt attendance log at offset " + validLength);
+                }
+                validLength += recordBytes;
+                return r;
+            }
+        } catch (EOFException torn) {
+            return null;
+        }
+    }
+
+    /** True once the segment footer has been reached: nothing may be appended to this file. */
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    private void printAll(PrintWriter out) throws IOException {
+        AttendanceRecord r;
+        while ((r = next()) != null) out.print(r.toText());
+    }
+
+    /** Bytes of the file holding complete records read so far. */
+    public long validLength() {
+        return validLength;
+    }
+
+    /** Course/year table seen so far, in id order. */
+    public List<String> courses() {
+        return Collections.unmodifiableList(courses);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String readString() throws IOException {
+        byte[] b = new byte[in.readUnsignedShort()];
+        in.readFully(b);
+        recordBytes += 2 + b.length;
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private String readSignature() throws IOException {
+        byte[] b = new byte[AttendanceFormat.SIGNATURE_BYTES];
+        in.readFully(b);
+        recordBytes += b.length;
+        return AttendanceFormat.signatureString(b);
+    }
+}
@@ -0,0 +1,568 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/*
+ * Answers questions about the binary attendance log without re-reading it.
+ *
+ * The log is memory-mapped and indexed once: for every check-in the index keeps its
+ * file offset, Time In, name id and course id, plus
+ *  - day buckets : local date -> check-ins of that day
+ *  - postings    : name (ignoring case) -> its check-ins, course -> its check-ins
+ * so time-range and per-student / per-course counts only touch the matching records,
+ * and the log itself is only read to print full records. refresh() indexes just the
+ * records appended since the last call, so a long-running query session keeps up
+ * with AttendanceTracker as it saves.
+ *
+ * Sealed segments (see AttendanceSegments) are known by their footers only until a
+ * query needs their records; a segment is then read once into a small index of its
+ * own, kept until it disappears: Time In and course per check-in (numbered in
+ * segment order) with the same day, name and course postings. Course counts take a segment lying wholly inside the date range straight
+ * from its footer and count the segments at the range edges from their index; record
+ * lists read only the segments whose postings match, and only up to the last match.
+ *
+ *   java AttendanceQuery attendance_records.bin day 2026-01-06
+ *   java AttendanceQuery attendance_records.bin courses 2026-01-05 2026-01-11
+ *   java AttendanceQuery attendance_records.bin student "Mage" [from to]
+ *   java AttendanceQuery attendance_records.bin course "bsit GD 1st" [from to]
+ *   java AttendanceQuery attendance_records.bin total
+ *   java AttendanceQuery attendance_records.bin          (commands from standard input)
+ *
+ * Check-ins imported with an unreadable Time In are only found by name or course.
+ * Compatible with Java 8+
+ */
+public class AttendanceQuery {
+
+    // Growable int list used for postings
+    static final class IntList {
+        int[] a = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == a.length) a = Arrays.copyOf(a, size * 2);
+            a[size++] = v;
+        }
+    }
+
+    private final File file;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private MappedByteBuffer map;
+    private long indexedLength;
+
+    // Per check-in, in log order
+    private long[] offset = new long[1024];
+    private long[] time = new long[1024];
+    private int[] nameId = new int[1024];
+    private int[] courseId = new int[1024];
+    private int count;
+
+    private final List<String> courses = new ArrayList<>();
+    private final List<IntList> byCourse = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<IntList> byName = new ArrayList<>();
+    private final TreeMap<Long, IntList> byDay = new TreeMap<>();
+
+    // Sealed segments, known by their footers only
+    private List<AttendanceSegments.Segment> segments = Collections.emptyList();
+    private int lastSequence;
+    private Map<Integer, SegmentIndex> segmentIndexes = new HashMap<>();
+    private int segmentsSummarized;
+    private int segmentsIndexed;
+    private int segmentsRead;
+
+    public AttendanceQuery(File file) throws IOException {
+        this.file = file;
+        indexedLength = AttendanceFormat.HEADER_SIZE;
+        refresh();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java AttendanceQuery <attendance_records.bin> [day|courses|student|course ...]");
+            System.exit(2);
+        }
+        AttendanceQuery q = new AttendanceQuery(new File(args[0]));
+        if (args.length > 1) {
+            q.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // interactive: the index catches up with new check-ins before every command
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        System.out.print("> ");
+        System.out.flush();
+        while ((line = in.readLine()) != null) {
+            if (!line.trim().isEmpty()) {
+                q.refresh();
+                q.run(splitArgs(line));
+            }
+            System.out.print("> ");
+            System.out.flush();
+        }
+    }
+
+    /** Indexes check-ins appended since the last call. Returns how many were added. */
+    public int refresh() throws IOException {
+        List<AttendanceSegments.Segment> sealed = AttendanceSegments.sealed(file);
+        int last = sealed.isEmpty() ? 0 : sealed.get(sealed.size() - 1).sequence;
+        // keep the indexes already built; segments are only read when a query needs them
+        Map<Integer, SegmentIndex> indexes = new HashMap<>();
+        for (AttendanceSegments.Segment s : sealed) {
+            SegmentIndex idx = segmentIndexes.get(s.sequence);
+            if (idx != null && idx.count == s.summary.count) indexes.put(s.sequence, idx);
+        }
+        segments = sealed;
+        segmentIndexes = indexes;
+        if (last != lastSequence) {
+            // the active file was sealed since the last call: its records are now in a segment
+            lastSequence = last;
+            resetActive();
+        }
+        int before = count;
+        if (!file.isFile()) return 0;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) throw new IOException(file + " is too large to map");
+            if (map != null && size < indexedLength) {
+                resetActive();
+                before = 0;
+            }
+            if (map == null || size > map.capacity()) {
+                if (size < AttendanceFormat.HEADER_SIZE) return 0;
+                map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (map.getInt(0) != AttendanceFormat.MAGIC) throw new IOException(file + " is not an attendance log");
+            }
+        }
+        ByteBuffer buf = map.duplicate();
+        int pos = (int) indexedLength;
+        while (pos < buf.limit()) {
+            int end = indexRecord(buf, pos);
+            if (end < 0) break; // torn or still being written
+            pos = end;
+        }
+        indexedLength = pos;
+        return count - before;
+    }
+
+    /** All check-ins: sealed segments (from their footers) plus the active log. */
+    public int size() {
+        int n = count;
+        for (AttendanceSegments.Segment s : segments) n += s.summary.count;
+        return n;
+    }
+
+    /** Check-ins whose Time In falls on the given local date. */
+    public List<AttendanceRecord> checkedInOn(LocalDate day) {
+        List<AttendanceRecord> out = new ArrayList<>();
+        long lo = startOf(day), hi = startOf(day.plusDays(1));
+        for (AttendanceSegments.Segment s : segments) {
+            if (s.summary.outside(lo, hi)) continue;
+            IntList ids = index(s).byDay.get(day.toEpochDay());
+            if (ids != null) read(s, ids, out);
+        }
+        IntList ids = byDay.get(day.toEpochDay());
+        if (ids != null) for (int i = 0; i < ids.size; i++) out.add(record(ids.a[i]));
+        return out;
+    }
+
+    /** Check-ins per course with Time In between the two dates (inclusive). */
+    public Map<String, Integer> countsByCourse(LocalDate from, LocalDate to) {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        long lo = startOf(from), hi = startOf(to.plusDays(1));
+        for (AttendanceSegments.Segment s : segments) {
+            if (s.summary.outside(lo, hi)) continue;
+            if (s.summary.within(lo, hi)) {
+                segmentsSummarized++;
+                for (Map.Entry<String, Integer> e : s.summary.perCourse.entrySet()) add(out, e.getKey(), e.getValue());
+            } else {
+                segmentsIndexed++;
+                SegmentIndex idx = index(s);
+                for (IntList ids : idx.byDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values()) {
+                    for (int i = 0; i < ids.size; i++) add(out, idx.courses.get(idx.courseId[ids.a[i]]), 1);
+                }
+            }
+        }
+        int[] counts = new int[courses.size()];
+        for (IntList ids : days(from, to).values()) {
+            for (int i = 0; i < ids.size; i++) counts[courseId[ids.a[i]]]++;
+        }
+        for (int c = 0; c < counts.length; c++) if (counts[c] > 0) add(out, courses.get(c), counts[c]);
+        return out;
+    }
+
+    /** Check-ins of the named student (ignoring case); from/to may be null for all time. */
+    public List<AttendanceRecord> forStudent(String name, LocalDate from, LocalDate to) {
+        List<AttendanceRecord> out = new ArrayList<>();
+        String key = nameKey(name);
+        boolean all = from == null && to == null;
+        long lo = lowerBound(from), hi = upperBound(to);
+        for (AttendanceSegments.Segment s : segments) {
+            // a segment with imported text times can only be ruled out when the whole log is wanted
+            if (!all && s.summary.outside(lo, hi)) continue;
+            SegmentIndex idx = index(s);
+            IntList ids = idx.byName.get(key);
+            if (ids != null && !all) ids = idx.inRange(ids, lo, hi);
+            if (ids != null && ids.size > 0) read(s, ids, out);
+        }
+        Integer id = nameIds.get(key);
+        if (id != null) out.addAll(inRange(byName.get(id), from, to));
+        return out;
+    }
+
+    /** Number of check-ins for the course/year (exact match); from/to may be null for all time. */
+    public int countForCourse(final String course, LocalDate from, LocalDate to) {
+        boolean all = from == null && to == null;
+        long lo = lowerBound(from), hi = upperBound(to);
+        int n = 0;
+        for (AttendanceSegments.Segment s : segments) {
+            if (!all && s.summary.outside(lo, hi)) continue;
+            if (all || s.summary.within(lo, hi)) {
+                segmentsSummarized++;
+                Integer c = s.summary.perCourse.get(course);
+                if (c != null) n += c;
+            } else if (s.summary.perCourse.containsKey(course)) {
+                segmentsIndexed++;
+                SegmentIndex idx = index(s);
+                n += idx.inRange(idx.byCourse.get(idx.courses.indexOf(course)), lo, hi).size;
+            }
+        }
+        int c = courses.indexOf(course);
+        if (c < 0) return n;
+        IntList ids = byCourse.get(c);
+        if (all) return n + ids.size;
+        for (int i = 0; i < ids.size; i++) if (inRange(time[ids.a[i]], lo, hi)) n++;
+        return n;
+    }
+
+    // ---- sealed segments ----
+
+    // Index of one sealed segment; check-ins are numbered in the order the segment holds them
+    static final class SegmentIndex {
+        int count;
+        long[] time;
+        int[] courseId;
+        final List<String> courses = new ArrayList<>();
+        final List<IntList> byCourse = new ArrayList<>();
+        final Map<String, IntList> byName = new HashMap<>();
+        final TreeMap<Long, IntList> byDay = new TreeMap<>();
+
+        SegmentIndex(AttendanceSegments.Segment s, ZoneId zone) throws IOException {
+            time = new long[Math.max(s.summary.count, 1)];
+            courseId = new int[time.length];
+            Map<String, Integer> courseIds = new HashMap<>();
+            try (AttendanceLogReader reader = s.open()) {
+                AttendanceRecord r;
+                while ((r = reader.next()) != null) {
+                    if (count == time.length) {
+                        time = Arrays.copyOf(time, count * 2);
+                        courseId = Arrays.copyOf(courseId, count * 2);
+                    }
+                    Integer c = courseIds.get(r.course);
+                    if (c == null) {
+                        c = courses.size();
+                        courseIds.put(r.course, c);
+                        courses.add(r.course);
+                        byCourse.add(new IntList());
+                    }
+                    int id = count++;
+                    time[id] = r.timeIn;
+                    courseId[id] = c;
+                    byCourse.get(c).add(id);
+                    String key = nameKey(r.name);
+                    IntList ids = byName.get(key);
+                    if (ids == null) byName.put(key, ids = new IntList());
+                    ids.add(id);
+                    if (r.timeIn != AttendanceFormat.NO_TIME) {
+                        long day = Instant.ofEpochMilli(r.timeIn).atZone(zone).toLocalDate().toEpochDay();
+                        IntList days = byDay.get(day);
+                        if (days == null) byDay.put(day, days = new IntList());
+                        days.add(id);
+                    }
+                }
+            }
+        }
+
+        // The check-ins of ids with a Time In inside [lo, hi)
+        IntList inRange(IntList ids, long lo, long hi) {
+            IntList out = new IntList();
+            for (int i = 0; i < ids.size; i++) if (AttendanceQuery.inRange(time[ids.a[i]], lo, hi)) out.add(ids.a[i]);
+            return out;
+        }
+    }
+
+    // Index of a sealed segment, read the first time a query needs it
+    private SegmentIndex index(AttendanceSegments.Segment s) {
+        SegmentIndex idx = segmentIndexes.get(s.sequence);
+        if (idx == null) {
+            segmentsRead++;
+            try {
+                idx = new SegmentIndex(s, zone);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            segmentIndexes.put(s.sequence, idx);
+        }
+        return idx;
+    }
+
+    // Reads the check-ins numbered ids (ascending) from a sealed segment, stopping after the last
+    private void read(AttendanceSegments.Segment s, IntList ids, List<AttendanceRecord> out) {
+        segmentsRead++;
+        try (AttendanceLogReader reader = s.open()) {
+            int next = 0;
+            for (int id = 0; next < ids.size; id++) {
+                AttendanceRecord r = reader.next();
+                if (r == null) throw new IOException(s.file + " changed since it was indexed");
+                if (id == ids.a[next]) {
+                    out.add(r);
+                    next++;
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void add(Map<String, Integer> counts, String course, int n) {
+        Integer old = counts.get(course);
+        counts.put(course, old == null ? n : old + n);
+    }
+
+    private void resetActive() {
+        map = null;
+        indexedLength = AttendanceFormat.HEADER_SIZE;
+        count = 0;
+        courses.clear();
+        byCourse.clear();
+        names.clear();
+        nameIds.clear();
+        byName.clear();
+        byDay.clear();
+    }
+
+    // ---- indexing ----
+
+    // Indexes the record at pos; returns the offset after it, or -1 if it is incomplete
+    private int indexRecord(ByteBuffer buf, int pos) {
+        try {
+            buf.position(pos);
+            byte type = buf.get();
+            int course = buf.getShort() & 0xFFFF;
+            if (type != AttendanceFormat.COURSE && course >= courses.size()) return -1;
+            if (type == AttendanceFormat.COURSE) {
+                String name = readString(buf);
+                if (course == courses.size()) {
+                    courses.add(name);
+                    byCourse.add(new IntList());
+                }
+                return buf.position();
+            }
+            long t = AttendanceFormat.NO_TIME;
+            if (type == AttendanceFormat.CHECK_IN) {
+                t = buf.getLong();
+                buf.position(buf.position() + AttendanceFormat.SIGNATURE_BYTES);
+                String name = readString(buf);
+                add(pos, t, name, course);
+            } else if (type == AttendanceFormat.CHECK_IN_TEXT_TIME) {
+                buf.position(buf.position() + AttendanceFormat.SIGNATURE_BYTES);
+                String name = readString(buf);
+                readString(buf);
+                add(pos, t, name, course);
+            } else if (type == AttendanceFormat.CHECK_IN_RAW) {
+                t = buf.getLong();
+                readString(buf);
+                String name = readString(buf);
+                readString(buf);
+                add(pos, t, name, course);
+            } else {
+                return -1;
+            }
+            return buf.position();
+        } catch (BufferUnderflowException | IllegalArgumentException torn) {
+            return -1;
+        }
+    }
+
+    private void add(int pos, long t, String name, int course) {
+        if (count == offset.length) {
+            int n = count * 2;
+            offset = Arrays.copyOf(offset, n);
+            time = Arrays.copyOf(time, n);
+            nameId = Arrays.copyOf(nameId, n);
+            courseId = Arrays.copyOf(courseId, n);
+        }
+        String key = nameKey(name);
+        Integer id = nameIds.get(key);
+        if (id == null) {
+            id = names.size();
+            nameIds.put(key, id);
+            names.add(key);
+            byName.add(new IntList());
+        }
+        int r = count++;
+        offset[r] = pos;
+        time[r] = t;
+        nameId[r] = id;
+        courseId[r] = course;
+        byName.get(id).add(r);
+        byCourse.get(course).add(r);
+        if (t != AttendanceFormat.NO_TIME) {
+            long day = Instant.ofEpochMilli(t).atZone(zone).toLocalDate().toEpochDay();
+            IntList ids = byDay.get(day);
+            if (ids == null) byDay.put(day, ids = new IntList());
+            ids.add(r);
+        }
+    }
+
+    // ---- reading ----
+
+    private AttendanceRecord record(int r) {
+        ByteBuffer buf = map.duplicate();
+        buf.position((int) offset[r]);
+        byte type = buf.get();
+        String course = courses.get(buf.getShort() & 0xFFFF);
+        if (type == AttendanceFormat.CHECK_IN_RAW) {
+            long t = buf.getLong();
+            String sig = readString(buf);
+            String name = readString(buf);
+            String text = readString(buf);
+            return new AttendanceRecord(name, course, t, t == AttendanceFormat.NO_TIME ? text : null, sig);
+        }
+        byte[] sig = new byte[AttendanceFormat.SIGNATURE_BYTES];
+        if (type == AttendanceFormat.CHECK_IN) {
+            long t = buf.getLong();
+            buf.get(sig);
+            return new AttendanceRecord(readString(buf), course, t, AttendanceFormat.signatureString(sig));
+        }
+        buf.get(sig);
+        String name = readString(buf);
+        return new AttendanceRecord(name, course, AttendanceFormat.NO_TIME, readString(buf), AttendanceFormat.signatureString(sig));
+    }
+
+    private List<AttendanceRecord> inRange(IntList ids, LocalDate from, LocalDate to) {
+        List<AttendanceRecord> out = new ArrayList<>();
+        boolean all = from == null && to == null;
+        long lo = lowerBound(from), hi = upperBound(to);
+        for (int i = 0; i < ids.size; i++) {
+            if (all || inRange(time[ids.a[i]], lo, hi)) out.add(record(ids.a[i]));
+        }
+        return out;
+    }
+
+    private static boolean inRange(long t, long lo, long hi) {
+        return t != AttendanceFormat.NO_TIME && t >= lo && t < hi;
+    }
+
+    // Millisecond bounds of a date range; null dates are open ends
+    private long lowerBound(LocalDate from) {
+        return from != null ? startOf(from) : Long.MIN_VALUE + 1;
+    }
+
+    private long upperBound(LocalDate to) {
+        return to != null ? startOf(to.plusDays(1)) : Long.MAX_VALUE;
+    }
+
+    private NavigableMap<Long, IntList> days(LocalDate from, LocalDate to) {
+        return byDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true);
+    }
+
+    private long startOf(LocalDate day) {
+        return day.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int len = buf.getShort() & 0xFFFF;
+        if (len > buf.remaining()) throw new BufferUnderflowException();
+        byte[] b = new byte[len];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // ---- command line ----
+
+    private void run(String[] cmd) {
+        segmentsSummarized = 0;
+        segmentsIndexed = 0;
+        segmentsRead = 0;
+        try {
+            switch (cmd[0]) {
+                case "day":
+                    for (AttendanceRecord r : checkedInOn(LocalDate.parse(cmd[1]))) System.out.print(r.toText());
+                    break;
+                case "courses":
+                    for (Map.Entry<String, Integer> e : countsByCourse(LocalDate.parse(cmd[1]), LocalDate.parse(cmd[2])).entrySet()) {
+                        System.out.println(e.getValue() + "\t" + e.getKey());
+                    }
+                    break;
+                case "student": {
+                    List<AttendanceRecord> rs = forStudent(cmd[1], date(cmd, 2), date(cmd, 3));
+                    for (AttendanceRecord r : rs) System.out.print(r.toText());
+                    System.out.println(rs.size() + " check-ins");
+                    break;
+                }
+                case "course":
+                    System.out.println(countForCourse(cmd[1], date(cmd, 2), date(cmd, 3)) + " check-ins");
+                    break;
+                case "total":
+                    System.out.println(size() + " check-ins in " + (segments.size() + 1) + " segments");
+                    break;
+                default:
+                    System.out.println("Commands: day DATE | courses FROM TO | student NAME [FROM TO] | course NAME [FROM TO] | total");
+            }
+            if (segmentsSummarized + segmentsIndexed + segmentsRead > 0) {
+                System.err.println("(" + segmentsSummarized + " segments from footers, " + segmentsIndexed
+                        + " from their index, " + segmentsRead + " read)");
+            }
+        } catch (UncheckedIOException ex) {
+            System.out.println("Cannot read segment: " + ex.getCause().getMessage());
+        } catch (RuntimeException ex) {
+            System.out.println("Bad command: " + ex.getMessage());
+        }
+    }
+
+    private static LocalDate date(String[] cmd, int i) {
+        return cmd.length > i ? LocalDate.parse(cmd[i]) : null;
+    }
+
+    // Splits a command line on spaces, keeping "quoted names" together
+    private static String[] splitArgs(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (char c : line.trim().toCharArray()) {
+            if (c == '"') quoted = !quoted;
+            else if (c == ' ' && !quoted) {
+                if (cur.length() > 0) out.add(cur.toString());
+                cur.setLength(0);
+            } else cur.append(c);
+        }
+        if (cur.length() > 0) out.add(cur.toString());
+        return out.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * One attendance check-in: the four fields shown on the Attendance Tracker form.
+ * Time In is kept as epoch milliseconds; records imported from an old text log whose
+ * time could not be read keep the original text instead.
+ * Compatible with Java 8+
+ */
+public final class AttendanceRecord {
+
+    public static final String SEPARATOR = "----------------------------------";
+
+    public final String name;
+    public final String course;
+    /** Epoch milliseconds, or AttendanceFormat.NO_TIME when only timeText is known. */
+    public final long timeIn;
+    /** Original Time In text of an imported record, otherwise null. */
+    public final String timeText;
+    public final String signature;
+
+    public AttendanceRecord(String name, String course, long timeIn, String signature) {
+        this(name, course, timeIn, null, signature);
+    }
+
+    AttendanceRecord(String name, String course, long timeIn, String timeText, String signature) {
+        this.name = name;
+        this.course = course;
+        this.timeIn = timeIn;
+        this.timeText = timeText;
+        this.signature = signature;
+    }
+
+    /**
+     * Record for a Time In string as found in the old text log. It is stored as a time
+     * only when formatting that time gives the same text back; anything else (another
+     * locale, extra spaces, a clock time skipped by a DST change) keeps the text.
+     */
+    public static AttendanceRecord fromText(String name, String course, String timeIn, String signature) {
+        long millis = AttendanceFormat.parseTime(timeIn);
+        return millis != AttendanceFormat.NO_TIME && AttendanceFormat.formatTime(millis).equals(timeIn)
+                ? new AttendanceRecord(name, course, millis, signature)
+                : new AttendanceRecord(name, course, AttendanceFormat.NO_TIME, timeIn, signature);
+    }
+
+    public String timeInText() {
+        return timeText != null ? timeText : AttendanceFormat.formatTime(timeIn);
+    }
+
+    // The five-line block of attendance_records.txt
+    public String toText() {
+        return "Name: " + name + "\n"
+                + "Course/Year: " + course + "\n"
+                + "Time In: " + timeInText() + "\n"
+                + "E-Signature: " + signature + "\n"
+                + SEPARATOR + "\n";
+    }
+}
@@ -0,0 +1,255 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/*
+ * Segments of the attendance log.
+ *
+ * The writer appends to the active log (attendance_records.bin). When it grows past
+ * attendance.segmentBytes (default 16 MB), or the first check-in of a new day
+ * arrives (attendance.segmentDaily, default true), the active log is sealed with a
+ * summary footer and renamed to attendance_records.bin.<n>.seg. Sealed segments are
+ * then compressed in the background to <n>.segz with the footer copied in front,
+ * so a summary never needs the records to be inflated.
+ *
+ *   footer : byte 4 | int count | int timed count | long minTime | long maxTime | short courses
+ *            | courses x (short len | UTF-8 course/year | int count) | int footer length
+ *   .seg   : the segment's log bytes followed by the footer
+ *   .segz  : int "ATTZ" | int footer length | footer | deflated log bytes
+ *
+ * Each segment starts its own course table, so it can be read on its own.
+ * Compatible with Java 8+
+ */
+public final class AttendanceSegments {
+
+    public static final byte FOOTER = 4;
+    static final String SEALED = ".seg";
+    static final String COMPRESSED = ".segz";
+    private static final int MAGIC_Z = 0x4154545A; // "ATTZ"
+
+    private AttendanceSegments() {}
+
+    /** Summary kept in a segment footer: time span, count and check-ins per course. */
+    public static final class Summary {
+        public long minTime = Long.MAX_VALUE;
+        public long maxTime = Long.MIN_VALUE;
+        public int count;
+        // check-ins with a Time In (imported ones may only have text)
+        public int timedCount;
+        public final Map<String, Integer> perCourse = new LinkedHashMap<>();
+
+        public void add(AttendanceRecord r) {
+            count++;
+            Integer n = perCourse.get(r.course);
+            perCourse.put(r.course, n == null ? 1 : n + 1);
+            if (r.timeIn != AttendanceFormat.NO_TIME) {
+                timedCount++;
+                minTime = Math.min(minTime, r.timeIn);
+                maxTime = Math.max(maxTime, r.timeIn);
+            }
+        }
+
+        /** Local date of the first check-in as an epoch day, or Long.MIN_VALUE if none has a time. */
+        long firstDay(ZoneId zone) {
+            return timedCount == 0 ? Long.MIN_VALUE
+                    : Instant.ofEpochMilli(minTime).atZone(zone).toLocalDate().toEpochDay();
+        }
+
+        /** True if every check-in has a Time In inside [lo, hi). */
+        public boolean within(long lo, long hi) {
+            return timedCount == count && (count == 0 || (minTime >= lo && maxTime < hi));
+        }
+
+        /** True if no check-in has a Time In inside [lo, hi). */
+        public boolean outside(long lo, long hi) {
+            return timedCount == 0 || maxTime < lo || minTime >= hi;
+        }
+    }
+
+    /** A sealed segment and its footer. */
+    public static final class Segment {
+        public final File file;
+        public final int sequence;
+        public final Summary summary;
+
+        Segment(File file, int sequence, Summary summary) {
+            this.file = file;
+            this.sequence = sequence;
+            this.summary = summary;
+        }
+
+        /** Reader over the segment's check-ins (inflating a compressed one as it goes). */
+        public AttendanceLogReader open() throws IOException {
+            // the compressor may have replaced the .seg since it was listed
+            File file = this.file.exists() ? this.file : compressedFile(this.file);
+            if (!file.getName().endsWith(COMPRESSED)) return new AttendanceLogReader(file);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+            try {
+                if (in.readInt() != MAGIC_Z) throw new IOException(file + " is not a compressed segment");
+                in.readFully(new byte[in.readInt()]);
+            } catch (IOException ex) {
+                in.close();
+                throw ex;
+            }
+            return new AttendanceLogReader(new InflaterInputStream(in), file.getPath());
+        }
+    }
+
+    /** Sealed segments of the log, oldest first, with their footers. */
+    public static List<Segment> sealed(File active) throws IOException {
+        File dir = active.getAbsoluteFile().getParentFile();
+        String prefix = active.getName() + ".";
+        TreeMap<Integer, File> files = new TreeMap<>();
+        String[] names = dir.list();
+        if (names == null) return Collections.emptyList();
+        for (String name : names) {
+            if (!name.startsWith(prefix)) continue;
+            String rest = name.substring(prefix.length());
+            boolean plain = rest.endsWith(SEALED), packed = rest.endsWith(COMPRESSED);
+            if (!plain && !packed) continue;
+            int seq;
+            try {
+                seq = Integer.parseInt(rest.substring(0, rest.lastIndexOf('.')));
+            } catch (NumberFormatException ex) {
+                continue;
+            }
+            // a plain .seg wins over a compressed copy that may not be finished
+            if (plain || !files.containsKey(seq)) files.put(seq, new File(dir, name));
+        }
+        List<Segment> out = new ArrayList<>();
+        for (Map.Entry<Integer, File> e : files.entrySet()) {
+            File f = e.getValue();
+            if (!f.exists()) f = compressedFile(f);
+            out.add(new Segment(f, e.getKey(), readFooter(f)));
+        }
+        return out;
+    }
+
+    /** Footer of a sealed (.seg) or compressed (.segz) segment. */
+    public static Summary readFooter(File segment) throws IOException {
+        try (RandomAccessFile f = new RandomAccessFile(segment, "r")) {
+            int footerLength;
+            if (segment.getName().endsWith(COMPRESSED)) {
+                if (f.readInt() != MAGIC_Z) throw new IOException(segment + " is not a compressed segment");
+                footerLength = f.readInt();
+                if (footerLength < 1 || footerLength > f.length()) throw new IOException(segment + " has no footer");
+            } else {
+                f.seek(f.length() - 4);
+                footerLength = f.readInt();
+                if (footerLength < 1 || footerLength > f.length()) throw new IOException(segment + " has no footer");
+                f.seek(f.length() - footerLength);
+            }
+            byte[] b = new byte[footerLength];
+            f.readFully(b);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(b));
+            if (in.readByte() != FOOTER) throw new IOException(segment + " has no footer");
+            Summary s = new Summary();
+            s.count = in.readInt();
+            s.timedCount = in.readInt();
+            s.minTime = in.readLong();
+            s.maxTime = in.readLong();
+            int courses = in.readUnsignedShort();
+            for (int i = 0; i < courses; i++) {
+                byte[] name = new byte[in.readUnsignedShort()];
+                in.readFully(name);
+                s.perCourse.put(new String(name, StandardCharsets.UTF_8), in.readInt());
+            }
+            return s;
+        }
+    }
+
+    static void writeFooter(Summary s, DataOutput out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream d = new DataOutputStream(bytes);
+        d.writeByte(FOOTER);
+        d.writeInt(s.count);
+        d.writeInt(s.timedCount);
+        d.writeLong(s.minTime);
+        d.writeLong(s.maxTime);
+        d.writeShort(s.perCourse.size());
+        for (Map.Entry<String, Integer> e : s.perCourse.entrySet()) {
+            byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+            d.writeShort(name.length);
+            d.write(name);
+            d.writeInt(e.getValue());
+        }
+        d.writeInt(bytes.size() + 4);
+        out.write(bytes.toByteArray());
+    }
+
+    static File sealedFile(File active, int sequence) {
+        return new File(active.getAbsoluteFile().getParentFile(), String.format("%s.%06d%s", active.getName(), sequence, SEALED));
+    }
+
+    static File compressedFile(File seg) {
+        String path = seg.getPath();
+        return path.endsWith(SEALED) ? new File(path.substring(0, path.length() - SEALED.length()) + COMPRESSED) : seg;
+    }
+
+    /** Replaces a sealed .seg with its compressed .segz. Safe to run beside the writer. */
+    static void compress(File seg) throws IOException {
+        File target = compressedFile(seg);
+        File tmp = new File(target.getPath() + ".tmp");
+        long footerStart;
+        byte[] footer;
+        try (RandomAccessFile f = new RandomAccessFile(seg, "r")) {
+            f.seek(f.length() - 4);
+            int footerLength = f.readInt();
+            footerStart = f.length() - footerLength;
+            footer = new byte[footerLength];
+            f.seek(footerStart);
+            f.readFully(footer);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024));
+             InputStream in = new BufferedInputStream(new FileInputStream(seg), 64 * 1024)) {
+            out.writeInt(MAGIC_Z);
+            out.writeInt(footer.length);
+            out.write(footer);
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                OutputStream z = new DeflaterOutputStream(out, deflater, 64 * 1024);
+                byte[] buf = new byte[64 * 1024];
+                long left = footerStart;
+                while (left > 0) {
+                    int n = in.read(buf, 0, (int) Math.min(buf.length, left));
+                    if (n < 0) throw new IOException(seg + " changed while compressing");
+                    z.write(buf, 0, n);
+                    left -= n;
+                }
+                ((DeflaterOutputStream) z).finish();
+            } finally {
+                deflater.end();
+            }
+        }
+        try (FileOutputStream sync = new FileOutputStream(tmp, true)) {
+            sync.getFD().sync();
+        }
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(seg.toPath());
+    }
+}
@@ -0,0 +1,150 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/*
+ * Headless check-in server: lets many kiosks feed one attendance log.
+ *
+ *   java AttendanceServer [port] [log file]      (defaults: 5150, attendance_records.bin)
+ *
+ * Protocol: one check-in per line, UTF-8, fields separated by tabs:
+ *
+ *   Name <TAB> Course/Year [<TAB> E-Signature]
+ *
+ * Fields are trimmed. Time In is the moment the server receives the line; a missing
+ * signature is generated the same way the Time In button does. A given signature
+ * must be 8 hex digits (stored in lower case) and is rejected if already in the
+ * log. Replies, one per line, in order:
+ *
+ *   OK <signature>   the record is stored (per the writer's durability policy), as stored
+ *   BUSY             too many records are waiting; nothing was stored, retry later
+ *   ERR <message>    the line was rejected
+ *
+ * Each connection runs on its own virtual thread (Java 21+; plain threads before
+ * that) and every record goes through one AttendanceWriter, so the log is appended
+ * by a single thread in arrival order. At most attendance.maxInFlight records
+ * (default 10000) may be waiting for the disk at once; beyond that the server
+ * answers BUSY instead of queueing more. Listens on the loopback interface unless
+ * attendance.host is set. Check-in latency, BUSY replies and the writer's batches
+ * are published as AttendanceServer:type=Metrics (see Metrics).
+ * Compatible with Java 8+
+ */
+public class AttendanceServer {
+
+    private static final Metrics.Timer CHECK_IN_TIME = Metrics.timer("checkin");
+    private static final Metrics.Counter BUSY = Metrics.counter("checkin.busy");
+
+    private final AttendanceWriter writer;
+    private final SignatureGenerator signatures;
+    private final Semaphore inFlight;
+    private final ExecutorService connections = newConnectionExecutor();
+
+    public AttendanceServer(AttendanceWriter writer, SignatureGenerator signatures, int maxInFlight) {
+        this.writer = writer;
+        this.signatures = signatures;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 5150;
+        File log = new File(args.length > 1 ? args[1] : "attendance_records.bin");
+        String host = System.getProperty("attendance.host");
+        InetAddress address = host != null ? InetAddress.getByName(host) : InetAddress.getLoopbackAddress();
+
+        Metrics.start("AttendanceServer");
+        SignatureGenerator signatures = SignatureGenerator.load(log);
+        AttendanceWriter writer = AttendanceWriter.open(log);
+        Runtime.getRuntime().addShutdownHook(new Thread(writer::close));
+        AttendanceServer server = new AttendanceServer(writer, signatures, Integer.getInteger("attendance.maxInFlight", 10000));
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.bind(new InetSocketAddress(address, port), 512);
+            System.err.println("Accepting check-ins on " + socket.getLocalSocketAddress() + ", writing " + log.getAbsolutePath());
+            server.serve(socket);
+        }
+    }
+
+    /** Accepts connections until the socket is closed. */
+    public void serve(ServerSocket socket) throws IOException {
+        while (!socket.isClosed()) {
+            Socket client = socket.accept();
+            connections.execute(() -> handle(client));
+        }
+    }
+
+    private void handle(Socket client) {
+        try (Socket s = client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            s.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                out.write(checkIn(line));
+                out.write('\n');
+                // answer now unless the client has already sent more lines
+                if (!in.ready()) out.flush();
+            }
+        } catch (IOException ignored) {
+            // kiosk went away; nothing is owed to it
+        }
+    }
+
+    private String checkIn(String line) {
+        String[] f = line.split("\t", -1);
+        if (f.length < 2 || f.length > 3 || f[0].trim().isEmpty() || f[1].trim().isEmpty()) {
+            return "ERR expected Name<TAB>Course/Year[<TAB>E-Signature]";
+        }
+        if (!inFlight.tryAcquire()) {
+            BUSY.increment();
+            return "BUSY";
+        }
+        long t0 = System.nanoTime();
+        try {
+            String given = f.length == 3 ? f[2].trim() : "";
+            String sig;
+            if (given.isEmpty()) {
+                sig = signatures.next();
+            } else {
+                long v = SignatureGenerator.parse(given);
+                if (v < 0) return "ERR signature must be 8 hex digits";
+                sig = SignatureGenerator.toHex((int) v);
+                if (!signatures.register((int) v)) return "ERR signature " + sig + " is already used";
+            }
+            writer.append(new AttendanceRecord(f[0].trim(), f[1].trim(), System.currentTimeMillis(), sig)).get();
+            CHECK_IN_TIME.record(t0);
+            return "OK " + sig;
+        } catch (ExecutionException ex) {
+            return "ERR " + ex.getCause().getMessage();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return "ERR interrupted";
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    // Virtual thread per connection where available (looked up reflectively to keep Java 8 support)
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "attendance-connection");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
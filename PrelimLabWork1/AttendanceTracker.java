@@ -1,10 +1,7 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.UUID;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
 
 /*
@@ -14,7 +11,24 @@ import java.io.IOException;
  */
 public class AttendanceTracker {
 
+    private static final File LOG_FILE = new File("attendance_records.bin");
+    // Text log written by earlier versions; imported once into LOG_FILE
+    private static final File OLD_TEXT_LOG = new File("attendance_records.txt");
+
+    // Saves go through one background writer for the whole session
+    private AttendanceWriter writer;
+    // Knows every signature in the log, so Time In never repeats one
+    private SignatureGenerator signatures = new SignatureGenerator();
+    // Time In of the form, in epoch millis
+    private long timeInMillis;
+
+    // From the Save click until the record is on disk
+    private static final Metrics.Timer SAVE_TIME = Metrics.timer("save");
+    private static final Metrics.Counter SAVED = Metrics.counter("records.saved");
+
     public static void main(String[] args) {
+        Metrics.start("AttendanceTracker");
+        Metrics.watchEdt();
         // Run GUI on the Event Dispatch Thread
         SwingUtilities.invokeLater(AttendanceTracker::new);
     }
@@ -22,7 +36,7 @@ public class AttendanceTracker {
     public AttendanceTracker() {
         // Create main frame
         JFrame frame = new JFrame("Attendance Tracker");
-        frame.setSize(420, 320);
+        frame.setSize(420, 340);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setLocationRelativeTo(null);
 
@@ -92,21 +106,61 @@ public class AttendanceTracker {
         gbc.gridwidth = 2;
         panel.add(buttonPanel, gbc);
 
+        // Row 6: save acknowledgements
+        JLabel statusLabel = new JLabel(" ");
+        gbc.gridx = 0; gbc.gridy = 5;
+        panel.add(statusLabel, gbc);
+
         frame.add(panel);
         frame.setVisible(true);
 
+        // Open the log off the EDT; on first run this also imports the old text log
+        saveBtn.setEnabled(false);
+        timeInBtn.setEnabled(false);
+        statusLabel.setText("Opening attendance log...");
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws IOException {
+                int imported = -1;
+                // sealed segments without an active file mean a crash mid-rotation, not a first run
+                if (!LOG_FILE.exists() && AttendanceSegments.sealed(LOG_FILE).isEmpty() && OLD_TEXT_LOG.isFile()) {
+                    imported = AttendanceLogConverter.convert(OLD_TEXT_LOG, LOG_FILE);
+                }
+                signatures = SignatureGenerator.load(LOG_FILE);
+                writer = AttendanceWriter.open(LOG_FILE);
+                // Flush queued records however the app exits
+                Runtime.getRuntime().addShutdownHook(new Thread(writer::close));
+                return imported;
+            }
+
+            @Override
+            protected void done() {
+                timeInBtn.setEnabled(true);
+                try {
+                    int imported = get();
+                    saveBtn.setEnabled(true);
+                    statusLabel.setText(imported >= 0
+                            ? "Imported " + imported + " records from " + OLD_TEXT_LOG.getName() + "."
+                            : " ");
+                } catch (Exception ex) {
+                    statusLabel.setText("Saving is disabled.");
+                    JOptionPane.showMessageDialog(frame,
+                            "Cannot open " + LOG_FILE.getName() + ", saving is disabled.",
+                            "File Error",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+
         // Time In button logic
         timeInBtn.addActionListener((ActionEvent e) -> {
-            LocalDateTime now = LocalDateTime.now();
+            timeInMillis = System.currentTimeMillis();
 
             // Human-friendly format
-            DateTimeFormatter formatter =
-                    DateTimeFormatter.ofPattern("MMM dd, yyyy hh:mm a");
-            timeField.setText(now.format(formatter));
+            timeField.setText(AttendanceFormat.formatTime(timeInMillis));
 
-            // Shortened UUID for e-signature
-            String shortUUID = UUID.randomUUID().toString().substring(0, 8);
-            sigField.setText(shortUUID);
+            // 8 hex digits, never one already in the log
+            sigField.setText(signatures.next());
         });
 
         // Save button logic
@@ -122,24 +176,25 @@ public class AttendanceTracker {
                 return;
             }
 
-            try (FileWriter writer = new FileWriter("attendance_records.txt", true)) {
-                writer.write("Name: " + nameField.getText() + "\n");
-                writer.write("Course/Year: " + courseField.getText() + "\n");
-                writer.write("Time In: " + timeField.getText() + "\n");
-                writer.write("E-Signature: " + sigField.getText() + "\n");
-                writer.write("----------------------------------\n");
-
-                JOptionPane.showMessageDialog(frame,
-                        "Attendance saved successfully.",
-                        "Saved",
-                        JOptionPane.INFORMATION_MESSAGE);
-
-            } catch (IOException ex) {
-                JOptionPane.showMessageDialog(frame,
-                        "Error saving file.",
-                        "File Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            // Queue the record and return; the writer reports back once it is on disk
+            final String name = nameField.getText();
+            final long t0 = System.nanoTime();
+            writer.append(new AttendanceRecord(name, courseField.getText(),
+                    timeInMillis, sigField.getText()))
+                    .whenComplete((ok, err) -> SwingUtilities.invokeLater(() -> {
+                        if (err == null) {
+                            SAVE_TIME.record(t0);
+                            SAVED.increment();
+                            statusLabel.setText("Attendance saved for " + name + ".");
+                        } else {
+                            statusLabel.setText("Save failed for " + name + ".");
+                            JOptionPane.showMessageDialog(frame,
+                                    "Error saving file.",
+                                    "File Error",
+                                    JOptionPane.ERROR_MESSAGE);
+                        }
+                    }));
+            statusLabel.setText("Saving " + name + "...");
         });
 
         // Clear button logic
@@ -159,6 +214,9 @@ public class AttendanceTracker {
         );
 
         // Exit button
-        exitBtn.addActionListener(e -> System.exit(0));
+        exitBtn.addActionListener(e -> {
+            if (writer != null) writer.close();
+            System.exit(0);
+        });
     }
 }
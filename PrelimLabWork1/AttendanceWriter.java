@@ -0,0 +1,428 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Background writer for the binary attendance log (see AttendanceFormat).
+ *
+ * Keeps the log open for the whole session; a record left incomplete by a crash is
+ * trimmed when the log is opened. append() only puts the record on a lock-free queue
+ * and returns; a single writer thread waits up to the flush interval for more
+ * records to arrive, then writes the whole batch with one call and (under the SYNC
+ * policy) one fsync. Each record's future completes once its batch meets
+ * the durability policy, or completes exceptionally if the write failed.
+ *
+ * The log is split into segments (see AttendanceSegments): the writer seals the
+ * active file when it is full or a new day starts, and compresses sealed segments
+ * on a separate thread so appends never wait for it.
+ *
+ * Only one writer may have a log open: it holds a lock on <log>.lock, so a second
+ * program (a tracker, the kiosk server, a roster import) fails to open it instead
+ * of interleaving records.
+ *
+ * Settings (system properties):
+ *   attendance.flushMillis       how long a batch may wait for more records (default 20)
+ *   attendance.durability        SYNC (fsync each batch, default) or WRITE (hand off to the OS)
+ *   attendance.segmentBytes      size at which the active segment is sealed (default 16 MB)
+ *   attendance.segmentDaily      also seal when the day changes (default true)
+ *   attendance.compressSegments  compress sealed segments (default true)
+ *
+ * Compatible with Java 8+
+ */
+public class AttendanceWriter implements Closeable {
+
+    public enum Durability {
+        /** Acknowledge once the batch is forced to the storage device. */
+        SYNC,
+        /** Acknowledge once the batch is written to the OS; a power loss may lose it. */
+        WRITE
+    }
+
+    private static final int MAX_BATCH_BYTES = 256 * 1024;
+
+    private static final Metrics.Timer BATCH_TIME = Metrics.timer("writer.batch");
+    private static final Metrics.Counter BYTES_WRITTEN = Metrics.counter("writer.bytes");
+    private static final Metrics.Counter RECORDS_WRITTEN = Metrics.counter("writer.records");
+
+    // Batch bytes, written to the channel without copying
+    private static final class BatchBuffer extends ByteArrayOutputStream {
+        BatchBuffer() {
+            super(64 * 1024);
+        }
+
+        ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    private static final class Pending {
+        final AttendanceRecord record;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(AttendanceRecord record) {
+            this.record = record;
+        }
+    }
+
+    private final File file;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private FileChannel channel;
+    private final long flushNanos;
+    private final Durability durability;
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean idle = new AtomicBoolean();
+    private final Thread thread;
+    private volatile boolean closed;
+    private AttendanceFormat.Encoder encoder;
+    private final BatchBuffer batchBytes = new BatchBuffer();
+    private final DataOutputStream batchOut = new DataOutputStream(batchBytes);
+
+    // Active segment: footer summary of the stored records, and what has been encoded into it
+    private final long segmentBytes;
+    private final boolean segmentDaily;
+    private final boolean compressSegments;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private AttendanceSegments.Summary summary;
+    private int segmentRecords;
+    private long segmentDay;
+    private int nextSequence;
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "attendance-compressor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public AttendanceWriter(File file, long flushMillis, Durability durability) throws IOException {
+        this.file = file;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, flushMillis));
+        this.durability = durability;
+        this.segmentBytes = Long.getLong("attendance.segmentBytes", 16L * 1024 * 1024);
+        this.segmentDaily = Boolean.parseBoolean(System.getProperty("attendance.segmentDaily", "true"));
+        this.compressSegments = Boolean.parseBoolean(System.getProperty("attendance.compressSegments", "true"));
+        this.lockChannel = FileChannel.open(new File(file.getPath() + ".lock").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            this.lock = lockChannel.tryLock();
+            if (lock == null) throw new OverlappingFileLockException();
+            List<AttendanceSegments.Segment> sealed = AttendanceSegments.sealed(file);
+            nextSequence = sealed.isEmpty() ? 1 : sealed.get(sealed.size() - 1).sequence + 1;
+            // segments sealed by an earlier run that never got compressed
+            for (AttendanceSegments.Segment s : sealed) {
+                if (s.file.getName().endsWith(AttendanceSegments.SEALED)) compressLater(s.file);
+            }
+            openActive();
+        } catch (OverlappingFileLockException ex) {
+            lockChannel.close();
+            throw new IOException(file + " is already open in another program");
+        } catch (IOException ex) {
+            lockChannel.close();
+            throw ex;
+        }
+        this.thread = new Thread(this::run, "attendance-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Writer configured from the attendance.* system properties. */
+    public static AttendanceWriter open(File file) throws IOException {
+        long flushMillis = Long.getLong("attendance.flushMillis", 20);
+        Durability durability = Durability.valueOf(
+                System.getProperty("attendance.durability", Durability.SYNC.name()).toUpperCase());
+        return new AttendanceWriter(file, flushMillis, durability);
+    }
+
+    /** Queues the record; the future completes when it is stored. Never blocks. */
+    public CompletableFuture<Void> append(AttendanceRecord record) {
+        Pending p = new Pending(record);
+        if (closed) {
+            p.done.completeExceptionally(new IOException("Attendance writer is closed"));
+            return p.done;
+        }
+        pending.incrementAndGet();
+        queue.offer(p);
+        if (idle.get()) LockSupport.unpark(thread);
+        failIfStopped();
+        return p.done;
+    }
+
+    /**
+     * Queues all the records at once, so the writer takes them in as few batches
+     * as possible; the future completes when every one of them is stored.
+     */
+    public CompletableFuture<Void> appendAll(List<AttendanceRecord> records) {
+        CompletableFuture<?>[] done = new CompletableFuture<?>[records.size()];
+        if (closed) {
+            CompletableFuture<Void> f = new CompletableFuture<>();
+            f.completeExceptionally(new IOException("Attendance writer is closed"));
+            return f;
+        }
+        pending.addAndGet(done.length);
+        for (int i = 0; i < done.length; i++) {
+            Pending p = new Pending(records.get(i));
+            done[i] = p.done;
+            queue.offer(p);
+        }
+        if (idle.get()) LockSupport.unpark(thread);
+        failIfStopped();
+        return CompletableFuture.allOf(done);
+    }
+
+    /*
+     * close() may have run between the closed check and the offer, after the writer
+     * thread took its last look at the queue. Once the thread has stopped, nothing
+     * else will take the record, so fail it here (close() does the same after join,
+     * for records offered before that).
+     */
+    private void failIfStopped() {
+        if (closed && !thread.isAlive()) failQueued();
+    }
+
+    private void failQueued() {
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            pending.decrementAndGet();
+            p.done.completeExceptionally(new IOException("Attendance writer is closed"));
+        }
+    }
+
+    /** Records queued or being written. */
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    // Opens (or creates) the active segment and rebuilds its summary; trims a torn last record
+    private void openActive() throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            summary = new AttendanceSegments.Summary();
+            if (channel.size() < AttendanceFormat.HEADER_SIZE) {
+                // new log (or one that never got past its header)
+                channel.truncate(0);
+                batchBytes.reset();
+                AttendanceFormat.writeHeader(batchOut);
+                write(batchBytes.asByteBuffer());
+                channel.force(true);
+                batchBytes.reset();
+                encoder = new AttendanceFormat.Encoder(Collections.<String>emptyList());
+            } else {
+                try (AttendanceLogReader reader = new AttendanceLogReader(file)) {
+                    AttendanceRecord r;
+                    while ((r = reader.next()) != null) summary.add(r);
+                    if (reader.isSealed()) {
+                        // sealed just before a crash but never renamed: finish the rotation
+                        channel.close();
+                        moveSealed();
+                        openActive();
+                        return;
+                    }
+                    encoder = new AttendanceFormat.Encoder(reader.courses());
+                    if (reader.validLength() < channel.size()) channel.truncate(reader.validLength());
+                }
+            }
+            segmentRecords = summary.count;
+            segmentDay = summary.firstDay(zone);
+            channel.position(channel.size());
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    private boolean needsRotation(AttendanceRecord r) throws IOException {
+        if (segmentRecords == 0) return false;
+        if (channel.size() + batchBytes.size() >= segmentBytes) return true;
+        return segmentDaily && r.timeIn != AttendanceFormat.NO_TIME && segmentDay != Long.MIN_VALUE
+                && dayOf(r.timeIn) != segmentDay;
+    }
+
+    // Seals the active segment with its footer and starts a new one
+    private void rotate() throws IOException {
+        batchBytes.reset();
+        AttendanceSegments.writeFooter(summary, batchOut);
+        write(batchBytes.asByteBuffer());
+        batchBytes.reset();
+        channel.force(true);
+        channel.close();
+        File sealed = moveSealed();
+        openActive();
+        compressLater(sealed);
+    }
+
+    private File moveSealed() throws IOException {
+        File sealed = AttendanceSegments.sealedFile(file, nextSequence++);
+        Files.move(file.toPath(), sealed.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        return sealed;
+    }
+
+    private void compressLater(File sealed) {
+        if (!compressSegments) return;
+        compressor.execute(() -> {
+            try {
+                AttendanceSegments.compress(sealed);
+            } catch (IOException ex) {
+                System.err.println("Could not compress " + sealed + ": " + ex.getMessage());
+            }
+        });
+    }
+
+    private long dayOf(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(zone).toLocalDate().toEpochDay();
+    }
+
+    /** Writes everything still queued, then closes the file. */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!thread.isAlive()) failQueued();
+        // a half-written compressed copy is redone on the next start
+        compressor.shutdown();
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException ignored) {}
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        while (true) {
+            // sleep until there is work
+            while (queue.isEmpty() && !closed) {
+                idle.set(true);
+                if (queue.isEmpty() && !closed) LockSupport.park(this);
+                idle.set(false);
+            }
+            if (queue.isEmpty() && closed) return;
+            // give other records a moment to join this batch
+            if (flushNanos > 0 && !closed) LockSupport.parkNanos(this, flushNanos);
+
+            while (!queue.isEmpty()) {
+                batch.clear();
+                batchBytes.reset();
+                int coursesBefore = encoder.courseCount();
+                int recordsBefore = segmentRecords;
+                long dayBefore = segmentDay;
+                Pending p;
+                while (batchBytes.size() < MAX_BATCH_BYTES && (p = queue.peek()) != null) {
+                    if (needsRotationSafely(p.record)) {
+                        // store what this segment already has first, then seal it
+                        if (!batch.isEmpty()) break;
+                        try {
+                            rotate();
+                        } catch (IOException ex) {
+                            recoverFromFailedRotation(ex);
+                        }
+                        coursesBefore = encoder.courseCount();
+                        recordsBefore = segmentRecords;
+                        dayBefore = segmentDay;
+                    }
+                    queue.poll();
+                    try {
+                        encoder.write(p.record, batchOut);
+                        batch.add(p);
+                        segmentRecords++;
+                        if (segmentDay == Long.MIN_VALUE && p.record.timeIn != AttendanceFormat.NO_TIME) {
+                            segmentDay = dayOf(p.record.timeIn);
+                        }
+                    } catch (IOException ex) {
+                        // this record cannot be stored (field too long); nothing of it was written
+                        pending.decrementAndGet();
+                        p.done.completeExceptionally(ex);
+                    }
+                }
+                writeBatch(batch, coursesBefore, recordsBefore, dayBefore);
+            }
+        }
+    }
+
+    private boolean needsRotationSafely(AttendanceRecord r) {
+        try {
+            return channel.isOpen() && needsRotation(r);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    // Keeps appending somewhere sensible: reopen the active file (finishing a half-done rotation)
+    private void recoverFromFailedRotation(IOException cause) {
+        System.err.println("Could not seal attendance segment: " + cause.getMessage());
+        try {
+            if (channel.isOpen()) channel.close();
+            openActive();
+        } catch (IOException ex) {
+            // the channel stays closed; the next batch fails and reports it to its callers
+            System.err.println("Could not reopen " + file + ": " + ex.getMessage());
+        }
+    }
+
+    private void writeBatch(List<Pending> batch, int coursesBefore, int recordsBefore, long dayBefore) {
+        IOException error = null;
+        long start = -1;
+        long t0 = System.nanoTime();
+        try {
+            start = channel.position();
+            write(batchBytes.asByteBuffer());
+            if (durability == Durability.SYNC) channel.force(false);
+            BATCH_TIME.record(t0);
+            BYTES_WRITTEN.add(batchBytes.size());
+            RECORDS_WRITTEN.add(batch.size());
+            for (Pending p : batch) summary.add(p.record);
+        } catch (IOException ex) {
+            error = ex;
+            // drop whatever part of the batch made it, so later records never refer to a lost course entry
+            encoder.truncateCourses(coursesBefore);
+            // and forget its records, so rotation never counts or dates a record that was not stored
+            segmentRecords = recordsBefore;
+            segmentDay = dayBefore;
+            try {
+                if (start >= 0) {
+                    channel.truncate(start);
+                    channel.position(start);
+                }
+            } catch (IOException ignored) {}
+        }
+        for (Pending p : batch) {
+            pending.decrementAndGet();
+            if (error == null) p.done.complete(null);
+            else p.done.completeExceptionally(error);
+        }
+    }
+
+    private void write(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) channel.write(buf);
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * E-signatures for check-ins: 8 lowercase hex digits (32 bits), the same shape the
+ * shortened UUIDs always had, but drawn from ThreadLocalRandom instead of
+ * SecureRandom and never handed out twice.
+ *
+ * Every signature issued, and every one already in the log (load()), is kept in a
+ * set of primitive ints split into stripes, each an open-addressing table behind its
+ * own lock, so threads checking in at the same time rarely wait for one another.
+ * A new signature that is already taken is simply drawn again.
+ * Compatible with Java 8+
+ */
+public final class SignatureGenerator {
+
+    private static final int STRIPE_BITS = 6;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // One part of the set: linear probing over ints, 0 marks an empty slot
+    private static final class Stripe {
+        int[] slots = new int[64];
+        int size;
+        boolean hasZero;
+
+        synchronized boolean add(int v, int hash) {
+            if (v == 0) {
+                if (hasZero) return false;
+                hasZero = true;
+                return true;
+            }
+            int mask = slots.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                int s = slots[i];
+                if (s == v) return false;
+                if (s == 0) {
+                    slots[i] = v;
+                    if (++size * 4 > slots.length * 3) grow();
+                    return true;
+                }
+            }
+        }
+
+        synchronized boolean contains(int v, int hash) {
+            if (v == 0) return hasZero;
+            int mask = slots.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                int s = slots[i];
+                if (s == v) return true;
+                if (s == 0) return false;
+            }
+        }
+
+        private void grow() {
+            int[] old = slots;
+            slots = new int[old.length * 2];
+            int mask = slots.length - 1;
+            for (int v : old) {
+                if (v == 0) continue;
+                int i = hash(v) & mask;
+                while (slots[i] != 0) i = (i + 1) & mask;
+                slots[i] = v;
+            }
+        }
+    }
+
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+
+    public SignatureGenerator() {
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new Stripe();
+    }
+
+    /** Generator that will not repeat any signature found in the log or its sealed segments. */
+    public static SignatureGenerator load(File log) throws IOException {
+        SignatureGenerator g = new SignatureGenerator();
+        for (AttendanceSegments.Segment s : AttendanceSegments.sealed(log)) {
+            try (AttendanceLogReader reader = s.open()) {
+                g.addAll(reader);
+            }
+        }
+        if (log.isFile()) {
+            try (AttendanceLogReader reader = new AttendanceLogReader(log)) {
+                g.addAll(reader);
+            }
+        }
+        return g;
+    }
+
+    private void addAll(AttendanceLogReader reader) throws IOException {
+        AttendanceRecord r;
+        while ((r = reader.next()) != null) register(r.signature);
+    }
+
+    /** A signature not issued before, as an int. */
+    public int nextInt() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            int v = random.nextInt();
+            if (add(v)) return v;
+        }
+    }
+
+    /** A signature not issued before, as 8 hex digits. */
+    public String next() {
+        return toHex(nextInt());
+    }
+
+    /**
+     * Marks a signature as taken (one typed in or sent by a kiosk).
+     * Returns false if it was already taken. Signatures that are not 8 hex digits
+     * can never be generated, so they are accepted without being stored.
+     */
+    public boolean register(String signature) {
+        long v = parse(signature);
+        return v < 0 || add((int) v);
+    }
+
+    /** Marks a signature given as an int as taken; false if it already was. */
+    public boolean register(int signature) {
+        return add(signature);
+    }
+
+    public boolean contains(String signature) {
+        long v = parse(signature);
+        if (v < 0) return false;
+        int h = hash((int) v);
+        return stripes[h >>> (32 - STRIPE_BITS)].contains((int) v, h);
+    }
+
+    private boolean add(int v) {
+        int h = hash(v);
+        return stripes[h >>> (32 - STRIPE_BITS)].add(v, h);
+    }
+
+    public static String toHex(int v) {
+        char[] c = new char[8];
+        for (int i = 7; i >= 0; i--) {
+            c[i] = HEX[v & 0xF];
+            v >>>= 4;
+        }
+        return new String(c);
+    }
+
+    // The 32-bit value of 8 ASCII hex digits (either case), or -1
+    static long parse(String s) {
+        if (s == null || s.length() != 8) return -1;
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            char c = s.charAt(i);
+            int d = c < 0x80 ? Character.digit(c, 16) : -1;
+            if (d < 0) return -1;
+            v = (v << 4) | d;
+        }
+        return v;
+    }
+
+    // Spreads the bits: the top ones pick the stripe, the low ones the slot
+    private static int hash(int v) {
+        int h = v * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
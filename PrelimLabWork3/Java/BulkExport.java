@@ -0,0 +1,321 @@
+/* BulkExport.java
+ *
+ * Term-end reports: the calculator's results (GradeReport) for every student in
+ * a roster CSV, streamed into one text file or a rolling set of files.
+ *
+ *   java BulkExport roster.csv [reports.txt] [--roll-mb N] [--formula grading.formula]
+ *
+ * Roster columns are found by header name, in any order, ignoring case:
+ *   Student ID, Name, Total Weeks, Late Enrollee, Missed Before, Absences,
+ *   Valid Excuse, Lab 1, Lab 2, Lab 3
+ * Late Enrollee and Valid Excuse take yes/no, y/n, true/false or 1/0, and an empty
+ * Missed Before is 0. A row that cannot be read still gets a report saying why.
+ * Grades use --formula, else GradingFormula.load() (grading.formula if present).
+ *
+ * The roster is read a line at a time. Each report is rendered into one reused
+ * StringBuilder, encoded to UTF-8 into a reused buffer and copied into a ring of
+ * direct ByteBuffers, which go to the FileChannel in one gathering write when they
+ * are all full - memory stays at a few megabytes whatever the size of the class.
+ * With --roll-mb the output is reports-0001.txt, reports-0002.txt, ..., moving
+ * to the next file before a report would take the current one past N MB
+ * (a report is never split between files).
+ */
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+public final class BulkExport {
+
+    static final String[] COLUMNS = {"Student ID", "Name", "Total Weeks", "Late Enrollee", "Missed Before",
+            "Absences", "Valid Excuse", "Lab 1", "Lab 2", "Lab 3"};
+    private static final int ID = 0, NAME = 1, TOTAL_WEEKS = 2, LATE = 3, MISSED_BEFORE = 4, ABSENCES = 5,
+            EXCUSE = 6, LAB1 = 7;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int BUFFERS = 4;
+    private static final String RULE = "==================================================\n";
+
+    /** What an export came to. */
+    public static final class Summary {
+        public long students;
+        public long errors;
+        public long bytes;
+        public int files;
+    }
+
+    private BulkExport() {}
+
+    public static void main(String[] args) {
+        File roster = null, out = null, formulaFile = null;
+        long rollBytes = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--roll-mb") && i + 1 < args.length) rollBytes = Long.parseLong(args[++i]) << 20;
+            else if (args[i].equals("--formula") && i + 1 < args.length) formulaFile = new File(args[++i]);
+            else if (roster == null) roster = new File(args[i]);
+            else out = new File(args[i]);
+        }
+        if (roster == null) {
+            System.err.println("Usage: java BulkExport roster.csv [reports.txt] [--roll-mb N] [--formula grading.formula]");
+            System.exit(2);
+        }
+        if (out == null) out = new File(roster.getName().replaceFirst("(\\.csv)?$", "_reports.txt"));
+        try {
+            GradingFormula formula = formulaFile != null ? GradingFormula.load(formulaFile) : GradingFormula.load();
+            long start = System.nanoTime();
+            Summary s = export(roster, out, rollBytes, formula);
+            double secs = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Wrote %d reports (%d with input errors), %.1f MB in %d file(s) in %.2f s (%.0f reports/s)%n",
+                    s.students, s.errors, s.bytes / 1048576.0, s.files, secs, s.students / secs);
+        } catch (IOException ex) {
+            System.err.println("Export failed: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Writes a report for every student in roster; rollBytes 0 keeps everything in out. */
+    public static Summary export(File roster, File out, long rollBytes, GradingFormula formula) throws IOException {
+        Summary summary = new Summary();
+        try (BufferedReader in = new BufferedReader(
+                     new InputStreamReader(new FileInputStream(roster), StandardCharsets.UTF_8), 1 << 16);
+             ReportWriter writer = new ReportWriter(out, rollBytes, summary)) {
+            String header = in.readLine();
+            if (header == null) throw new IOException(roster.getName() + " is empty");
+            if (header.startsWith("\uFEFF")) header = header.substring(1);
+            String[] fields = ensure(new String[16], header);
+            int[] columns = columns(roster, fields, split(header, fields));
+
+            StringBuilder report = new StringBuilder(2048);
+            String line;
+            long lineNo = 1;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (line.trim().isEmpty()) continue;
+                fields = ensure(fields, line);
+                int count = split(line, fields);
+                report.setLength(0);
+                if (!appendReport(report, formula, fields, count, columns, lineNo)) summary.errors++;
+                writer.write(report);
+                summary.students++;
+            }
+        }
+        return summary;
+    }
+
+    // Field index of each COLUMNS entry
+    private static int[] columns(File roster, String[] header, int count) throws IOException {
+        int[] columns = new int[COLUMNS.length];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = -1;
+            for (int f = 0; f < count; f++) {
+                if (header[f].trim().equalsIgnoreCase(COLUMNS[c])) columns[c] = f;
+            }
+            if (columns[c] < 0) throw new IOException(roster.getName() + " has no \"" + COLUMNS[c] + "\" column");
+        }
+        return columns;
+    }
+
+    // One student's report, headed by their ID and name; false if their row has an input error
+    private static boolean appendReport(StringBuilder out, GradingFormula formula, String[] fields, int count,
+                                        int[] columns, long lineNo) {
+        out.append(RULE);
+        out.append("Student ID : ").append(field(fields, count, columns[ID])).append('\n');
+        out.append("Name       : ").append(field(fields, count, columns[NAME])).append('\n');
+        out.append(RULE);
+        String problem;
+        try {
+            int totalWeeks = integer(fields, count, columns[TOTAL_WEEKS], COLUMNS[TOTAL_WEEKS]);
+            boolean late = yes(fields, count, columns[LATE], COLUMNS[LATE]);
+            String missed = field(fields, count, columns[MISSED_BEFORE]);
+            int missedBefore = missed.isEmpty() ? 0 : integer(fields, count, columns[MISSED_BEFORE], COLUMNS[MISSED_BEFORE]);
+            int absences = integer(fields, count, columns[ABSENCES], COLUMNS[ABSENCES]);
+            boolean hasExcuse = yes(fields, count, columns[EXCUSE], COLUMNS[EXCUSE]);
+            double lab1 = lab(fields, count, columns[LAB1], COLUMNS[LAB1]);
+            double lab2 = lab(fields, count, columns[LAB1 + 1], COLUMNS[LAB1 + 1]);
+            double lab3 = lab(fields, count, columns[LAB1 + 2], COLUMNS[LAB1 + 2]);
+            int mark = out.length();
+            byte status = GradeReport.append(out, formula, totalWeeks, late, missedBefore, absences, hasExcuse,
+                    lab1, lab2, lab3);
+            if (GradeEngine.inputError(status) == null) {
+                out.append('\n');
+                return true;
+            }
+            problem = out.substring(mark);
+            out.setLength(mark);
+        } catch (IllegalArgumentException ex) {
+            problem = ex.getMessage();
+        }
+        out.append("Input error (roster line ").append(lineNo).append("): ").append(problem).append("\n\n");
+        return false;
+    }
+
+    private static String field(String[] fields, int count, int f) {
+        return f < count ? fields[f].trim() : "";
+    }
+
+    private static int integer(String[] fields, int count, int f, String name) {
+        String s = field(fields, count, f);
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(name + " is not a whole number: \"" + s + "\"");
+        }
+    }
+
+    private static double lab(String[] fields, int count, int f, String name) {
+        String s = field(fields, count, f);
+        double v;
+        try {
+            v = Double.parseDouble(s);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(name + " is not a number: \"" + s + "\"");
+        }
+        if (!(v >= 0 && v <= 100)) throw new IllegalArgumentException(name + " must be between 0 and 100.");
+        return v;
+    }
+
+    private static boolean yes(String[] fields, int count, int f, String name) {
+        String s = field(fields, count, f).toLowerCase();
+        switch (s) {
+            case "yes": case "y": case "true": case "1": return true;
+            case "no": case "n": case "false": case "0": case "": return false;
+            default: throw new IllegalArgumentException(name + " should be yes or no: \"" + s + "\"");
+        }
+    }
+
+    // Room for every field the line could have (one per comma, plus one)
+    private static String[] ensure(String[] fields, String line) {
+        int commas = 0;
+        for (int i = 0; i < line.length(); i++) if (line.charAt(i) == ',') commas++;
+        return commas < fields.length ? fields : new String[commas + 1];
+    }
+
+    // Splits a CSV line into fields (quotes and "" escapes handled); returns the count
+    static int split(String line, String[] fields) {
+        int count = 0;
+        StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch != '"') sb.append(ch);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"') sb.append(line.charAt(++i));
+                else quoted = false;
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields[count++] = sb.toString();
+                sb.setLength(0);
+            } else {
+                sb.append(ch);
+            }
+        }
+        fields[count++] = sb.toString();
+        return count;
+    }
+
+    // Encodes reports into a ring of direct buffers and writes the ring with gathering writes
+    private static final class ReportWriter implements Closeable {
+        private final File out;
+        private final long rollBytes;
+        private final Summary summary;
+        private final ByteBuffer[] ring = new ByteBuffer[BUFFERS];
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private ByteBuffer encoded = ByteBuffer.allocate(8192);
+        private int current;
+        private FileChannel channel;
+        private long fileBytes;
+
+        ReportWriter(File out, long rollBytes, Summary summary) throws IOException {
+            this.out = out;
+            this.rollBytes = rollBytes;
+            this.summary = summary;
+            for (int i = 0; i < ring.length; i++) ring[i] = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            open();
+        }
+
+        void write(CharSequence report) throws IOException {
+            ByteBuffer bytes = encode(report);
+            int size = bytes.remaining();
+            if (rollBytes > 0 && fileBytes > 0 && fileBytes + size > rollBytes) {
+                flush();
+                channel.close();
+                open();
+            }
+            while (bytes.hasRemaining()) {
+                ByteBuffer b = ring[current];
+                if (!b.hasRemaining()) {
+                    if (current + 1 == ring.length) flush();
+                    else current++;
+                    continue;
+                }
+                int n = Math.min(b.remaining(), bytes.remaining());
+                int limit = bytes.limit();
+                bytes.limit(bytes.position() + n);
+                b.put(bytes);
+                bytes.limit(limit);
+            }
+            fileBytes += size;
+            summary.bytes += size;
+        }
+
+        private ByteBuffer encode(CharSequence text) {
+            while (true) {
+                encoder.reset();
+                encoded.clear();
+                CoderResult cr = encoder.encode(CharBuffer.wrap(text), encoded, true);
+                if (cr.isUnderflow()) cr = encoder.flush(encoded);
+                if (!cr.isOverflow()) break;
+                encoded = ByteBuffer.allocate(encoded.capacity() * 2);
+            }
+            encoded.flip();
+            return encoded;
+        }
+
+        // Everything buffered, in one gathering write (repeated until the channel took it all)
+        private void flush() throws IOException {
+            for (int i = 0; i <= current; i++) ring[i].flip();
+            while (ring[current].hasRemaining()) channel.write(ring, 0, current + 1);
+            for (ByteBuffer b : ring) b.clear();
+            current = 0;
+        }
+
+        private void open() throws IOException {
+            summary.files++;
+            File f = rollBytes > 0 ? numbered(out, summary.files) : out;
+            channel = FileChannel.open(f.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            fileBytes = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // reports.txt -> reports-0003.txt
+    static File numbered(File out, int n) {
+        String name = out.getName();
+        int dot = name.lastIndexOf('.');
+        String numbered = dot > 0 ? String.format("%s-%04d%s", name.substring(0, dot), n, name.substring(dot))
+                : String.format("%s-%04d", name, n);
+        return new File(out.getAbsoluteFile().getParentFile(), numbered);
+    }
+}
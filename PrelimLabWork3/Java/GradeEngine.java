@@ -0,0 +1,201 @@
+/* GradeEngine.java
+ *
+ * The prelim grading rules without any Swing: attendance from raw counts (with
+ * late-enrollee handling), the automatic-fail rule, lab average, class standing
+ * and the exam score needed for Passing (75) and Excellent (100).
+ *
+ *   ClassStanding = (Attendance% * 0.40) + (LabAvg * 0.60)
+ *   PrelimGrade   = (PrelimExam * 0.30) + (ClassStanding * 0.70)
+ *   RequiredExam  = (Target - (ClassStanding * 0.70)) / 0.30
+ *
+ * compute() grades one student. compute(Batch) grades a whole class held as
+ * columns (one array per input and output, a student per index) in a single loop
+ * that allocates nothing; both give exactly the same numbers.
+ *
+ * The GradingFormula overloads do the same with a department's own weights and
+ * thresholds; with GradingFormula.DEFAULT they give exactly these numbers.
+ */
+public final class GradeEngine {
+
+    public static final double PASSING = 75.0;
+    public static final double EXCELLENT = 100.0;
+    public static final int AUTO_FAIL_ABSENCES = 4;
+
+    // Outcome of grading one student
+    public static final byte OK = 0;
+    public static final byte AUTO_FAIL = 1;
+    public static final byte MISSED_BEFORE_TOO_HIGH = 2;
+    public static final byte NO_COUNTED_WEEKS = 3;
+    public static final byte ABSENCES_OUT_OF_RANGE = 4;
+
+    private GradeEngine() {}
+
+    /** One student's grade; the numbers are only meaningful when status is OK or AUTO_FAIL. */
+    public static final class Result {
+        public final byte status;
+        public final int countedWeeks;
+        public final int attendedWeeks;
+        public final double attendancePct;
+        public final double labAvg;
+        public final double classStanding;
+        public final double requiredPass;
+        public final double requiredExcellent;
+
+        Result(byte status, int countedWeeks, int attendedWeeks, double attendancePct, double labAvg,
+               double classStanding, double requiredPass, double requiredExcellent) {
+            this.status = status;
+            this.countedWeeks = countedWeeks;
+            this.attendedWeeks = attendedWeeks;
+            this.attendancePct = attendancePct;
+            this.labAvg = labAvg;
+            this.classStanding = classStanding;
+            this.requiredPass = requiredPass;
+            this.requiredExcellent = requiredExcellent;
+        }
+    }
+
+    /** A class as columns: fill the inputs for size students, compute(batch), read the outputs. */
+    public static final class Batch {
+        public final int size;
+        // inputs
+        public final int[] totalWeeks;
+        public final boolean[] late;
+        public final int[] missedBefore;
+        public final int[] absences;
+        public final boolean[] hasExcuse;
+        public final double[] lab1, lab2, lab3;
+        // outputs
+        public final byte[] status;
+        public final double[] attendancePct;
+        public final double[] labAvg;
+        public final double[] classStanding;
+        public final double[] requiredPass;
+        public final double[] requiredExcellent;
+
+        public Batch(int size) {
+            this.size = size;
+            totalWeeks = new int[size];
+            late = new boolean[size];
+            missedBefore = new int[size];
+            absences = new int[size];
+            hasExcuse = new boolean[size];
+            lab1 = new double[size];
+            lab2 = new double[size];
+            lab3 = new double[size];
+            status = new byte[size];
+            attendancePct = new double[size];
+            labAvg = new double[size];
+            classStanding = new double[size];
+            requiredPass = new double[size];
+            requiredExcellent = new double[size];
+        }
+    }
+
+    /** Message for a status that stops the calculation, or null for OK and AUTO_FAIL. */
+    public static String inputError(byte status) {
+        switch (status) {
+            case MISSED_BEFORE_TOO_HIGH: return "Weeks missed before enrollment must be less than total weeks.";
+            case NO_COUNTED_WEEKS: return "Counted weeks must be at least 1.";
+            case ABSENCES_OUT_OF_RANGE: return "Absences must be between 0 and the counted weeks.";
+            default: return null;
+        }
+    }
+
+    public static Result compute(int totalWeeks, boolean late, int missedBefore, int absences, boolean hasExcuse,
+                                 double lab1, double lab2, double lab3) {
+        int countedWeeks = late ? (totalWeeks - missedBefore) : totalWeeks;
+        byte status = status(totalWeeks, late, missedBefore, countedWeeks, absences, hasExcuse, AUTO_FAIL_ABSENCES);
+        int attendedWeeks = countedWeeks - absences;
+        double attendancePct = attendancePct(countedWeeks, absences);
+        double labAvg = (lab1 + lab2 + lab3) / 3.0;
+        double classStanding = classStanding(attendancePct, labAvg);
+        return new Result(status, countedWeeks, attendedWeeks, attendancePct, labAvg, classStanding,
+                requiredExam(PASSING, classStanding), requiredExam(EXCELLENT, classStanding));
+    }
+
+    public static Result compute(GradingFormula f, int totalWeeks, boolean late, int missedBefore, int absences,
+                                 boolean hasExcuse, double lab1, double lab2, double lab3) {
+        int countedWeeks = late ? (totalWeeks - missedBefore) : totalWeeks;
+        byte status = status(totalWeeks, late, missedBefore, countedWeeks, absences, hasExcuse, f.autoFailAbsences());
+        double attendancePct = attendancePct(countedWeeks, absences);
+        GradingFormula.Workspace w = f.singleWorkspace();
+        f.evaluate(w, attendancePct, lab1, lab2, lab3);
+        return new Result(status, countedWeeks, countedWeeks - absences, attendancePct, w.labAverage(0),
+                w.classStanding(0), w.requiredExam(f.passing(), 0), w.requiredExam(f.excellent(), 0));
+    }
+
+    public static double attendancePct(int countedWeeks, int absences) {
+        return ((countedWeeks - absences) / (double) countedWeeks) * 100.0;
+    }
+
+    public static double classStanding(double attendancePct, double labAvg) {
+        return (attendancePct * 0.40) + (labAvg * 0.60);
+    }
+
+    /** Exam score that makes the prelim grade exactly target (may be below 0 or above 100). */
+    public static double requiredExam(double target, double classStanding) {
+        return (target - (classStanding * 0.70)) / 0.30;
+    }
+
+    /** Grades every student of the batch. */
+    public static void compute(Batch b) {
+        final int[] totalWeeks = b.totalWeeks, missedBefore = b.missedBefore, absences = b.absences;
+        final boolean[] late = b.late, hasExcuse = b.hasExcuse;
+        final double[] lab1 = b.lab1, lab2 = b.lab2, lab3 = b.lab3;
+        final byte[] status = b.status;
+        final double[] attendancePct = b.attendancePct, labAvg = b.labAvg, classStanding = b.classStanding;
+        final double[] requiredPass = b.requiredPass, requiredExcellent = b.requiredExcellent;
+        for (int i = 0; i < b.size; i++) {
+            int countedWeeks = late[i] ? (totalWeeks[i] - missedBefore[i]) : totalWeeks[i];
+            status[i] = status(totalWeeks[i], late[i], missedBefore[i], countedWeeks, absences[i], hasExcuse[i],
+                    AUTO_FAIL_ABSENCES);
+            double att = attendancePct(countedWeeks, absences[i]);
+            double lab = (lab1[i] + lab2[i] + lab3[i]) / 3.0;
+            double standing = classStanding(att, lab);
+            attendancePct[i] = att;
+            labAvg[i] = lab;
+            classStanding[i] = standing;
+            requiredPass[i] = requiredExam(PASSING, standing);
+            requiredExcellent[i] = requiredExam(EXCELLENT, standing);
+        }
+    }
+
+    /** Grades every student of the batch with the formula, GradingFormula.BLOCK students at a time. */
+    public static void compute(GradingFormula f, Batch b) {
+        final int[] totalWeeks = b.totalWeeks, missedBefore = b.missedBefore, absences = b.absences;
+        final boolean[] late = b.late, hasExcuse = b.hasExcuse;
+        final double[] lab1 = b.lab1, lab2 = b.lab2, lab3 = b.lab3;
+        final byte[] status = b.status;
+        final double[] attendancePct = b.attendancePct, labAvg = b.labAvg, classStanding = b.classStanding;
+        final double[] requiredPass = b.requiredPass, requiredExcellent = b.requiredExcellent;
+        final double passing = f.passing(), excellent = f.excellent();
+        final int autoFail = f.autoFailAbsences();
+        final GradingFormula.Workspace w = f.newWorkspace();
+        for (int from = 0; from < b.size; from += GradingFormula.BLOCK) {
+            int n = Math.min(GradingFormula.BLOCK, b.size - from);
+            for (int i = from; i < from + n; i++) {
+                int countedWeeks = late[i] ? (totalWeeks[i] - missedBefore[i]) : totalWeeks[i];
+                status[i] = status(totalWeeks[i], late[i], missedBefore[i], countedWeeks, absences[i], hasExcuse[i],
+                        autoFail);
+                attendancePct[i] = attendancePct(countedWeeks, absences[i]);
+            }
+            f.evaluate(w, attendancePct, lab1, lab2, lab3, from, n);
+            for (int j = 0; j < n; j++) {
+                labAvg[from + j] = w.labAverage(j);
+                classStanding[from + j] = w.classStanding(j);
+                requiredPass[from + j] = w.requiredExam(passing, j);
+                requiredExcellent[from + j] = w.requiredExam(excellent, j);
+            }
+        }
+    }
+
+    // Checked in the order the calculator reports them; autoFailAbsences 0 turns the automatic fail off
+    private static byte status(int totalWeeks, boolean late, int missedBefore, int countedWeeks, int absences,
+                               boolean hasExcuse, int autoFailAbsences) {
+        if (late && missedBefore >= totalWeeks) return MISSED_BEFORE_TOO_HIGH;
+        if (countedWeeks <= 0) return NO_COUNTED_WEEKS;
+        if (absences < 0 || absences > countedWeeks) return ABSENCES_OUT_OF_RANGE;
+        if (autoFailAbsences > 0 && absences >= autoFailAbsences && !hasExcuse) return AUTO_FAIL;
+        return OK;
+    }
+}
@@ -0,0 +1,107 @@
+/* GradeReport.java
+ *
+ * The calculator's results text for one student, appended to a StringBuilder:
+ * computed values, then the exam required to pass and to reach excellent (or the
+ * automatic-fail notice, or the input error). PrelimLabCalculator shows it and
+ * BulkExport writes one per roster row, so both always read the same. Weights,
+ * targets and the automatic-fail count come from the GradingFormula in use.
+ *
+ * Numbers are appended directly (fixed2 instead of String.format/DecimalFormat)
+ * so a report costs a StringBuilder's worth of appends and nothing else.
+ */
+
+public final class GradeReport {
+
+    static final String NL = System.lineSeparator(); // what %n used to print
+
+    private GradeReport() {}
+
+    /** Appends the report and returns the GradeEngine status; for input errors only the message is appended. */
+    public static byte append(StringBuilder out, GradingFormula f, int totalWeeks, boolean late, int missedBefore,
+                              int absences, boolean hasExcuse, double lab1, double lab2, double lab3) {
+        GradeEngine.Result r = GradeEngine.compute(f, totalWeeks, late, missedBefore, absences, hasExcuse, lab1, lab2, lab3);
+        String error = GradeEngine.inputError(r.status);
+        if (error != null) {
+            out.append(error);
+            return r.status;
+        }
+        int countedWeeks = r.countedWeeks;
+
+        // Automatic fail rule
+        if (r.status == GradeEngine.AUTO_FAIL) {
+            out.append("AUTOMATIC FAIL\n");
+            out.append("-------------------------------\n");
+            out.append("Reason: ").append(f.autoFailAbsences()).append(" or more absences without a valid excuse.\n");
+            out.append("Total prelim weeks counted: ").append(countedWeeks).append(NL);
+            out.append("Absences reported         : ").append(absences).append(NL);
+            return r.status;
+        }
+
+        // Build output (copy-friendly)
+        out.append("Computed values\n");
+        out.append("-------------------------------\n");
+        out.append("Total prelim weeks counted : ").append(countedWeeks).append(NL);
+        if (late) out.append("Late enrollee, weeks missed before enrollment: ").append(missedBefore).append(NL);
+        out.append("Attended weeks             : ").append(r.attendedWeeks).append(NL);
+        fixed2(out.append("Attendance percentage      : "), r.attendancePct).append('%').append(NL);
+        fixed2(out.append("Lab Work 1                 : "), lab1).append(NL);
+        fixed2(out.append("Lab Work 2                 : "), lab2).append(NL);
+        fixed2(out.append("Lab Work 3                 : "), lab3).append(NL);
+        fixed2(out.append("Lab Work Average           : "), r.labAvg).append(NL);
+        double weight = f.standingWeight();
+        out.append("Class Standing (component for final");
+        if (!Double.isNaN(weight)) out.append(", ").append(GradingFormula.number(Math.rint(weight * 1e8) / 1e6)).append('%');
+        fixed2(out.append(") : "), r.classStanding).append(NL);
+        out.append("\n");
+
+        String passing = GradingFormula.number(f.passing()), excellent = GradingFormula.number(f.excellent());
+        out.append("Required Prelim Exam to PASS (final = ").append(passing).append(")\n");
+        out.append("-------------------------------\n");
+        if (r.requiredPass <= 0) {
+            out.append("Required Exam (pass)   : 0.00\n");
+            out.append("Remark                 : No exam needed to reach a passing final grade.\n");
+        } else if (r.requiredPass > 100) {
+            out.append("Required Exam (pass)   : >100\n");
+            out.append("Remark                 : Even a perfect exam cannot reach a passing final grade.\n");
+        } else {
+            fixed2(out.append("Required Exam (pass)   : "), r.requiredPass).append(NL);
+            fixed2(out.append("Remark                 : You need at least "), r.requiredPass)
+                    .append("% on the exam to reach ").append(passing).append('.').append(NL);
+        }
+        out.append("\n");
+
+        out.append("Required Prelim Exam to ACHIEVE EXCELLENT (final = ").append(excellent).append(")\n");
+        out.append("-------------------------------\n");
+        if (r.requiredExcellent <= 0) {
+            out.append("Required Exam (excellent): 0.00\n");
+            out.append("Remark                   : Current standing already yields excellent without exam.\n");
+        } else if (r.requiredExcellent > 100) {
+            out.append("Required Exam (excellent): >100\n");
+            out.append("Remark                   : Even a perfect exam cannot reach excellent.\n");
+        } else {
+            fixed2(out.append("Required Exam (excellent): "), r.requiredExcellent).append(NL);
+            fixed2(out.append("Remark                   : You need at least "), r.requiredExcellent)
+                    .append("% on the exam to reach ").append(excellent).append('.').append(NL);
+        }
+        return r.status;
+    }
+
+    /*
+     * Appends v with two decimals, rounded half-even on its exact binary value the
+     * way DecimalFormat("#0.00") does (so 0.005 -> 0.01, 2.675 -> 2.67). The sign
+     * of one fused multiply-add says which side of the halfway point v * 100 is on.
+     */
+    static StringBuilder fixed2(StringBuilder sb, double v) {
+        if (Double.doubleToRawLongBits(v) < 0) {
+            sb.append('-');
+            v = -v;
+        }
+        double cents = Math.floor(v * 100);
+        double past = Math.fma(v, 100, -(cents + 0.5));
+        if (past > 0 || (past == 0 && ((long) cents & 1) != 0)) cents += 1;
+        long c = (long) cents;
+        sb.append(c / 100).append('.');
+        if (c % 100 < 10) sb.append('0');
+        return sb.append(c % 100);
+    }
+}
@@ -0,0 +1,564 @@
+/* GradingFormula.java
+ *
+ * The grading weights as a small formula file, so each department can use its own.
+ * This is the built-in one (DEFAULT), the same numbers as GradeEngine:
+ *
+ *   # grading.formula
+ *   labAverage       = (lab1 + lab2 + lab3) / 3
+ *   classStanding    = attendance * 0.40 + labAverage * 0.60
+ *   prelimGrade      = exam * 0.30 + classStanding * 0.70
+ *   passing          = 75
+ *   excellent        = 100
+ *   autoFailAbsences = 4
+ *
+ * One "name = expression" per line, # starts a comment. Expressions use numbers,
+ * + - * / ( ), min(a, b), max(a, b), the inputs attendance (percent), lab1, lab2,
+ * lab3 and exam, and any name defined on an earlier line (e.g. "labWeight = 0.6").
+ * classStanding and prelimGrade are required; labAverage defaults to the mean of
+ * the three labs; passing, excellent and autoFailAbsences (0 = no automatic fail)
+ * must be plain numbers. classStanding and labAverage cannot use exam, and
+ * prelimGrade must be linear in exam (no exam * exam, nothing divided by exam).
+ *
+ * The file is parsed once: constants are folded and the expressions become a
+ * short program of column instructions (d = a + b, d = a * 0.40, ...). The program
+ * runs over a block of up to BLOCK students at a time, each instruction one tight
+ * loop over the block, so the per-instruction dispatch is paid once per block
+ * rather than per student and a custom formula grades a class at about the speed
+ * of the hard-coded one in GradeEngine. prelimGrade is split into a + b * exam when loading, which
+ * is how the required exam is solved: (target - a) / b.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class GradingFormula {
+
+    public static final String DEFAULT_TEXT = ""
+            + "labAverage       = (lab1 + lab2 + lab3) / 3\n"
+            + "classStanding    = attendance * 0.40 + labAverage * 0.60\n"
+            + "prelimGrade      = exam * 0.30 + classStanding * 0.70\n"
+            + "passing          = 75\n"
+            + "excellent        = 100\n"
+            + "autoFailAbsences = 4\n";
+
+    // Slots of the inputs in the variables array; definitions follow
+    private static final String[] INPUTS = {"attendance", "lab1", "lab2", "lab3", "exam"};
+    private static final int ATTENDANCE = 0, LAB1 = 1, LAB2 = 2, LAB3 = 3, EXAM = 4;
+    private static final int MAX_SLOTS = 64;
+
+    /** Students evaluated together; a Workspace holds this many. */
+    public static final int BLOCK = 1024;
+
+    // Column instructions: d = x op y, d = x op c, d = c op x (c a constant), d = -x, d = c
+    private static final byte ADD = 0, SUB = 1, MUL = 2, DIV = 3, MIN = 4, MAX = 5;
+    private static final byte ADD_C = 6, SUB_C = 7, MUL_C = 8, DIV_C = 9, MIN_C = 10, MAX_C = 11;
+    private static final byte C_SUB = 12, C_DIV = 13, NEGATE = 14, CONST = 15, COPY = 16;
+
+    public static final GradingFormula DEFAULT = parse(DEFAULT_TEXT, "built-in formula");
+
+    private final String source;
+    private final int registers;         // variable slots, then temporaries
+    private final byte[] op;             // the program, one column instruction each
+    private final int[] dst, x, y;
+    private final double[] c;
+    private final int labAverageSlot, classStandingSlot;
+    private final int examFreeSlot, examSlopeSlot; // prelimGrade = examFree + examSlope * exam
+    private final double standingWeight;
+    private final double passing, excellent;
+    private final int autoFailAbsences;
+    private final String classStandingText, prelimGradeText;
+    private final ThreadLocal<Workspace> single = ThreadLocal.withInitial(() -> new Workspace(1));
+
+    private GradingFormula(Parser p, String source) {
+        this.source = source;
+        examFreeSlot = p.names.size();
+        examSlopeSlot = examFreeSlot + 1;
+        labAverageSlot = p.slot("labAverage");
+        classStandingSlot = p.slot("classStanding");
+        int prelimGradeSlot = p.slot("prelimGrade");
+        if (p.depends(labAverageSlot, EXAM)) throw p.error("labAverage cannot use exam");
+        if (p.depends(classStandingSlot, EXAM)) throw p.error("classStanding cannot use exam");
+
+        Node[] exam = p.linear(p.defs.get(prelimGradeSlot), EXAM);
+        if (exam == null) throw p.error("prelimGrade must be linear in exam (no exam * exam, nothing divided by exam)");
+        if (exam[1].is(0)) throw p.error("prelimGrade does not use exam");
+
+        // everything prelimGrade needs besides exam is worked out per student, in file order,
+        // then the two halves of prelimGrade, so requiredExam() is plain arithmetic. Other
+        // constants are inlined where used; the two the Workspace reads still get stored
+        Program program = new Program(examSlopeSlot + 1);
+        for (int s = INPUTS.length; s < examFreeSlot; s++) {
+            boolean output = s == labAverageSlot || s == classStandingSlot;
+            if (p.defs.get(s).op == Node.NUM && !output || p.depends(s, EXAM)) continue;
+            program.into(p.defs.get(s), s);
+        }
+        program.into(exam[0], examFreeSlot);
+        program.into(exam[1], examSlopeSlot);
+        registers = program.registers;
+        op = program.op.toByteArray();
+        dst = program.dst.stream().mapToInt(Integer::intValue).toArray();
+        x = program.x.stream().mapToInt(Integer::intValue).toArray();
+        y = program.y.stream().mapToInt(Integer::intValue).toArray();
+        c = program.c.stream().mapToDouble(Double::doubleValue).toArray();
+
+        Node[] standing = p.linear(p.defs.get(prelimGradeSlot), classStandingSlot);
+        standingWeight = standing != null && standing[1].op == Node.NUM ? standing[1].value : Double.NaN;
+
+        passing = p.constant("passing", GradeEngine.PASSING);
+        excellent = p.constant("excellent", GradeEngine.EXCELLENT);
+        double autoFail = p.constant("autoFailAbsences", GradeEngine.AUTO_FAIL_ABSENCES);
+        if (autoFail < 0 || autoFail != Math.rint(autoFail)) throw p.error("autoFailAbsences must be a whole number");
+        autoFailAbsences = (int) autoFail;
+        classStandingText = p.text.get("classStanding");
+        prelimGradeText = p.text.get("prelimGrade");
+    }
+
+    /** The formula in grading.formula (or the file named by -Dgrading.formula) if there is one, else DEFAULT. */
+    public static GradingFormula load() throws IOException {
+        String path = System.getProperty("grading.formula");
+        File f = new File(path != null ? path : "grading.formula");
+        return path != null || f.isFile() ? load(f) : DEFAULT;
+    }
+
+    public static GradingFormula load(File file) throws IOException {
+        String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        try {
+            return parse(text, file.getName());
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /** Parses and compiles formula text; IllegalArgumentException says what and where if it is wrong. */
+    public static GradingFormula parse(String text, String source) {
+        Parser p = new Parser(source);
+        if (!text.matches("(?s)(.*\n)?\\s*labAverage\\s*=.*")) p.parseLine("labAverage = (lab1 + lab2 + lab3) / 3", 0);
+        String[] lines = text.split("\r?\n", -1);
+        for (int i = 0; i < lines.length; i++) p.parseLine(lines[i], i + 1);
+        p.line = 0;
+        for (String required : new String[] {"classStanding", "prelimGrade"}) {
+            if (!p.slots.containsKey(required)) throw p.error("no " + required + " = ... line");
+        }
+        return new GradingFormula(p, source);
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public double passing() {
+        return passing;
+    }
+
+    public double excellent() {
+        return excellent;
+    }
+
+    /** Absences that fail a student without an excuse; 0 if the formula has no automatic fail. */
+    public int autoFailAbsences() {
+        return autoFailAbsences;
+    }
+
+    /** Share of classStanding in prelimGrade (0.70 by default), NaN if it is not a fixed share. */
+    public double standingWeight() {
+        return standingWeight;
+    }
+
+    /** One line for the calculator's footer. */
+    public String describe() {
+        return "Formula: prelimGrade = " + prelimGradeText + "   classStanding = " + classStandingText;
+    }
+
+    /** Scratch columns for up to BLOCK students (or one); not for sharing between threads. */
+    public final class Workspace {
+        private final double[][] col;
+
+        private Workspace(int capacity) {
+            col = new double[registers][capacity];
+        }
+
+        public double labAverage(int i) {
+            return col[labAverageSlot][i];
+        }
+
+        public double classStanding(int i) {
+            return col[classStandingSlot][i];
+        }
+
+        /** Exam score that makes prelimGrade exactly target for student i. */
+        public double requiredExam(double target, int i) {
+            return (target - col[examFreeSlot][i]) / col[examSlopeSlot][i];
+        }
+    }
+
+    public Workspace newWorkspace() {
+        return new Workspace(BLOCK);
+    }
+
+    /** This thread's workspace for one student at a time (evaluate with single values). */
+    public Workspace singleWorkspace() {
+        return single.get();
+    }
+
+    /** Evaluates students from .. from + n - 1 (n at most BLOCK) into w, as w's students 0 .. n - 1. */
+    public void evaluate(Workspace w, double[] attendancePct, double[] lab1, double[] lab2, double[] lab3,
+                         int from, int n) {
+        System.arraycopy(attendancePct, from, w.col[ATTENDANCE], 0, n);
+        System.arraycopy(lab1, from, w.col[LAB1], 0, n);
+        System.arraycopy(lab2, from, w.col[LAB2], 0, n);
+        System.arraycopy(lab3, from, w.col[LAB3], 0, n);
+        run(w.col, n);
+    }
+
+    /** Evaluates one student into w as its student 0. */
+    public void evaluate(Workspace w, double attendancePct, double lab1, double lab2, double lab3) {
+        w.col[ATTENDANCE][0] = attendancePct;
+        w.col[LAB1][0] = lab1;
+        w.col[LAB2][0] = lab2;
+        w.col[LAB3][0] = lab3;
+        run(w.col, 1);
+    }
+
+    // One pass over the program; each instruction is a plain loop the JIT can vectorize
+    private void run(double[][] col, int n) {
+        for (int k = 0; k < op.length; k++) {
+            double[] d = col[dst[k]], a = col[x[k]], b = col[y[k]];
+            double v = c[k];
+            switch (op[k]) {
+                case ADD: for (int i = 0; i < n; i++) d[i] = a[i] + b[i]; break;
+                case SUB: for (int i = 0; i < n; i++) d[i] = a[i] - b[i]; break;
+                case MUL: for (int i = 0; i < n; i++) d[i] = a[i] * b[i]; break;
+                case DIV: for (int i = 0; i < n; i++) d[i] = a[i] / b[i]; break;
+                case MIN: for (int i = 0; i < n; i++) d[i] = Math.min(a[i], b[i]); break;
+                case MAX: for (int i = 0; i < n; i++) d[i] = Math.max(a[i], b[i]); break;
+                case ADD_C: for (int i = 0; i < n; i++) d[i] = a[i] + v; break;
+                case SUB_C: for (int i = 0; i < n; i++) d[i] = a[i] - v; break;
+                case MUL_C: for (int i = 0; i < n; i++) d[i] = a[i] * v; break;
+                case DIV_C: for (int i = 0; i < n; i++) d[i] = a[i] / v; break;
+                case MIN_C: for (int i = 0; i < n; i++) d[i] = Math.min(a[i], v); break;
+                case MAX_C: for (int i = 0; i < n; i++) d[i] = Math.max(a[i], v); break;
+                case C_SUB: for (int i = 0; i < n; i++) d[i] = v - a[i]; break;
+                case C_DIV: for (int i = 0; i < n; i++) d[i] = v / a[i]; break;
+                case NEGATE: for (int i = 0; i < n; i++) d[i] = -a[i]; break;
+                case CONST: for (int i = 0; i < n; i++) d[i] = v; break;
+                default: System.arraycopy(a, 0, d, 0, n); break;
+            }
+        }
+    }
+
+    // "75", "72.5"
+    static String number(double v) {
+        return v == Math.rint(v) && Math.abs(v) < 1e15 ? Long.toString((long) v) : Double.toString(v);
+    }
+
+    // Expression tree before compiling
+    private static final class Node {
+        static final char NUM = 'n', VAR = 'v', NEG = '~', MIN = 'm', MAX = 'M';
+        final char op;
+        final double value;
+        final int slot;
+        final Node left, right;
+
+        private Node(char op, double value, int slot, Node left, Node right) {
+            this.op = op;
+            this.value = value;
+            this.slot = slot;
+            this.left = left;
+            this.right = right;
+        }
+
+        static Node num(double value) {
+            return new Node(NUM, value, -1, null, null);
+        }
+
+        static Node var(int slot) {
+            return new Node(VAR, 0, slot, null, null);
+        }
+
+        boolean is(double c) {
+            return op == NUM && value == c;
+        }
+
+        // Builds l op r, folding constants and the identities that keep the same result
+        static Node of(char op, Node l, Node r) {
+            if (l.op == NUM && (r == null || r.op == NUM)) {
+                double a = l.value, b = r == null ? 0 : r.value;
+                switch (op) {
+                    case '+': return num(a + b);
+                    case '-': return num(a - b);
+                    case '*': return num(a * b);
+                    case '/': return num(a / b);
+                    case NEG: return num(-a);
+                    case MIN: return num(Math.min(a, b));
+                    case MAX: return num(Math.max(a, b));
+                    default: throw new IllegalStateException(String.valueOf(op));
+                }
+            }
+            switch (op) {
+                case '+':
+                    if (l.is(0)) return r;
+                    if (r.is(0)) return l;
+                    break;
+                case '-':
+                    if (r.is(0)) return l;
+                    if (l.is(0)) return of(NEG, r, null);
+                    break;
+                case '*':
+                    if (l.is(1)) return r;
+                    if (r.is(1)) return l;
+                    if (l.is(0) || r.is(0)) return num(0);
+                    break;
+                case '/':
+                    if (r.is(1)) return l;
+                    break;
+                default:
+                    break;
+            }
+            return new Node(op, 0, -1, l, r);
+        }
+    }
+
+    // Turns trees into column instructions; every inner node gets a temporary register
+    private static final class Program {
+        int registers;
+        final java.io.ByteArrayOutputStream op = new java.io.ByteArrayOutputStream();
+        final List<Integer> dst = new ArrayList<>(), x = new ArrayList<>(), y = new ArrayList<>();
+        final List<Double> c = new ArrayList<>();
+
+        Program(int slots) {
+            registers = slots;
+        }
+
+        // Register holding n: a variable's own slot, or a temporary it is computed into
+        private int operand(Node n) {
+            if (n.op == Node.VAR) return n.slot;
+            int t = registers++;
+            into(n, t);
+            return t;
+        }
+
+        void into(Node n, int d) {
+            switch (n.op) {
+                case Node.NUM: emit(CONST, d, 0, 0, n.value); return;
+                case Node.VAR: emit(COPY, d, n.slot, 0, 0); return;
+                case Node.NEG: emit(NEGATE, d, operand(n.left), 0, 0); return;
+                default: break;
+            }
+            byte base;
+            switch (n.op) {
+                case '+': base = ADD; break;
+                case '-': base = SUB; break;
+                case '*': base = MUL; break;
+                case '/': base = DIV; break;
+                case Node.MIN: base = MIN; break;
+                default: base = MAX; break;
+            }
+            if (n.right.op == Node.NUM) {
+                emit((byte) (base + ADD_C), d, operand(n.left), 0, n.right.value);
+            } else if (n.left.op == Node.NUM) {
+                // + * min max give the same result either way round; - and / need their own
+                byte swapped = base == SUB ? C_SUB : base == DIV ? C_DIV : (byte) (base + ADD_C);
+                emit(swapped, d, operand(n.right), 0, n.left.value);
+            } else {
+                int a = operand(n.left);
+                emit(base, d, a, operand(n.right), 0);
+            }
+        }
+
+        private void emit(byte o, int d, int a, int b, double v) {
+            op.write(o);
+            dst.add(d);
+            x.add(a);
+            y.add(b);
+            c.add(v);
+        }
+    }
+
+    // Recursive-descent parser; keeps every definition as a tree over slots
+    private static final class Parser {
+        final String source;
+        final List<String> names = new ArrayList<>();
+        final Map<String, Integer> slots = new HashMap<>();
+        final List<Node> defs = new ArrayList<>();
+        final List<Long> deps = new ArrayList<>();  // slots each definition reads, directly or not
+        final Map<String, String> text = new HashMap<>();
+        int line;
+        private String s;
+        private int pos;
+
+        Parser(String source) {
+            this.source = source;
+            for (String in : INPUTS) define(in, null, 0);
+        }
+
+        void parseLine(String raw, int number) {
+            line = number;
+            int hash = raw.indexOf('#');
+            String l = (hash >= 0 ? raw.substring(0, hash) : raw).trim();
+            if (l.isEmpty()) return;
+            int eq = l.indexOf('=');
+            if (eq < 0) throw error("expected name = expression");
+            String name = l.substring(0, eq).trim();
+            if (!name.matches("[A-Za-z_][A-Za-z0-9_]*")) throw error("\"" + name + "\" is not a name");
+            if (slots.containsKey(name)) throw error(name + " is already defined");
+            s = l.substring(eq + 1);
+            pos = 0;
+            Node n = expr();
+            skipSpaces();
+            if (pos < s.length()) throw error("unexpected \"" + s.substring(pos).trim() + "\"");
+            define(name, n, deps(n));
+            text.put(name, s.trim());
+        }
+
+        private void define(String name, Node n, long dependsOn) {
+            if (names.size() == MAX_SLOTS) throw error("too many definitions");
+            slots.put(name, names.size());
+            names.add(name);
+            defs.add(n);
+            deps.add(dependsOn);
+        }
+
+        int slot(String name) {
+            return slots.get(name);
+        }
+
+        boolean depends(int slot, int on) {
+            return (deps.get(slot) & (1L << on)) != 0;
+        }
+
+        double constant(String name, double fallback) {
+            Integer slot = slots.get(name);
+            if (slot == null) return fallback;
+            Node n = defs.get(slot);
+            if (n.op != Node.NUM) throw error(name + " must be a number");
+            return n.value;
+        }
+
+        private long deps(Node n) {
+            if (n == null || n.op == Node.NUM) return 0;
+            if (n.op == Node.VAR) return (1L << n.slot) | deps.get(n.slot);
+            return deps(n.left) | deps(n.right);
+        }
+
+        /** n as {a, b} with n = a + b * x, inlining definitions that use x; null if n is not linear in x. */
+        Node[] linear(Node n, int x) {
+            switch (n.op) {
+                case Node.NUM:
+                    return new Node[] {n, Node.num(0)};
+                case Node.VAR:
+                    if (n.slot == x) return new Node[] {Node.num(0), Node.num(1)};
+                    if (n.slot >= INPUTS.length && depends(n.slot, x)) return linear(defs.get(n.slot), x);
+                    return new Node[] {n, Node.num(0)};
+                case Node.NEG: {
+                    Node[] a = linear(n.left, x);
+                    if (a == null) return null;
+                    return new Node[] {Node.of(Node.NEG, a[0], null), Node.of(Node.NEG, a[1], null)};
+                }
+                default:
+                    break;
+            }
+            Node[] a = linear(n.left, x), b = linear(n.right, x);
+            if (a == null || b == null) return null;
+            boolean aLinear = !a[1].is(0), bLinear = !b[1].is(0);
+            switch (n.op) {
+                case '+':
+                case '-':
+                    return new Node[] {Node.of(n.op, a[0], b[0]), Node.of(n.op, a[1], b[1])};
+                case '*':
+                    if (aLinear && bLinear) return null;
+                    return aLinear ? new Node[] {Node.of('*', a[0], b[0]), Node.of('*', a[1], b[0])}
+                            : new Node[] {Node.of('*', a[0], b[0]), Node.of('*', a[0], b[1])};
+                case '/':
+                    if (bLinear) return null;
+                    return new Node[] {Node.of('/', a[0], b[0]), Node.of('/', a[1], b[0])};
+                default: // min, max
+                    if (aLinear || bLinear) return null;
+                    return new Node[] {n, Node.num(0)};
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(source + (line > 0 ? " line " + line : "") + ": " + message);
+        }
+
+        // expr := term (('+' | '-') term)*
+        private Node expr() {
+            Node n = term();
+            while (true) {
+                if (eat('+')) n = Node.of('+', n, term());
+                else if (eat('-')) n = Node.of('-', n, term());
+                else return n;
+            }
+        }
+
+        // term := unary (('*' | '/') unary)*
+        private Node term() {
+            Node n = unary();
+            while (true) {
+                if (eat('*')) n = Node.of('*', n, unary());
+                else if (eat('/')) n = Node.of('/', n, unary());
+                else return n;
+            }
+        }
+
+        private Node unary() {
+            return eat('-') ? Node.of(Node.NEG, unary(), null) : primary();
+        }
+
+        // number | name | min(expr, expr) | max(expr, expr) | (expr)
+        private Node primary() {
+            skipSpaces();
+            if (eat('(')) {
+                Node n = expr();
+                expect(')');
+                return n;
+            }
+            int start = pos;
+            if (pos < s.length() && (Character.isDigit(s.charAt(pos)) || s.charAt(pos) == '.')) {
+                while (pos < s.length() && (Character.isDigit(s.charAt(pos)) || s.charAt(pos) == '.')) pos++;
+                try {
+                    return Node.num(Double.parseDouble(s.substring(start, pos)));
+                } catch (NumberFormatException ex) {
+                    throw error("\"" + s.substring(start, pos) + "\" is not a number");
+                }
+            }
+            while (pos < s.length() && (Character.isLetterOrDigit(s.charAt(pos)) || s.charAt(pos) == '_')) pos++;
+            if (start == pos) throw error(pos < s.length() ? "unexpected \"" + s.charAt(pos) + "\"" : "expression ends too early");
+            String name = s.substring(start, pos);
+            if ((name.equals("min") || name.equals("max")) && eat('(')) {
+                Node a = expr();
+                expect(',');
+                Node b = expr();
+                expect(')');
+                return Node.of(name.equals("min") ? Node.MIN : Node.MAX, a, b);
+            }
+            Integer slot = slots.get(name);
+            if (slot == null) throw error("unknown name \"" + name + "\"");
+            Node def = defs.get(slot);
+            return def != null && def.op == Node.NUM ? def : Node.var(slot);
+        }
+
+        private boolean eat(char c) {
+            skipSpaces();
+            if (pos < s.length() && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!eat(c)) throw error("expected \"" + c + "\"");
+        }
+
+        private void skipSpaces() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+    }
+}
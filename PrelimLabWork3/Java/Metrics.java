@@ -0,0 +1,278 @@
+/* Metrics.java
+ *
+ * In-process metrics: latency histograms and counters, shown through JMX and,
+ * if asked for, a log line.
+ *
+ *   Metrics.Timer SAVE = Metrics.timer("save");
+ *   long t0 = System.nanoTime(); ... SAVE.record(t0);
+ *   Metrics.counter("records.saved").increment();
+ *
+ * Recording allocates nothing and takes no lock: a histogram is an array of atomic
+ * bucket counts, each bucket an eighth of a power of two wide (within 12.5%), so
+ * p50 / p99 are read off the buckets and max is exact. Values are since start.
+ *
+ * Metrics.start(app) registers the MBean <app>:type=Metrics (see it in JConsole or
+ * VisualVM) and, with -Dmetrics.logSeconds=N, prints every metric to stderr every
+ * N seconds. Metrics.watchEdt() adds "edt.lag": how long a task posted to the Swing
+ * event thread waits before it runs, i.e. how long the UI was blocked.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.swing.SwingUtilities;
+
+public final class Metrics {
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+
+    private Metrics() {}
+
+    /** Latency histogram in nanoseconds. */
+    public static final class Timer {
+        // 0..15 ns exactly, then 8 buckets per power of two up to 2^63
+        private static final int LINEAR = 16;
+        private final AtomicLongArray buckets = new AtomicLongArray(LINEAR + 60 * 8);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        /** Records the time since start, a System.nanoTime() value. */
+        public void record(long startNanos) {
+            recordNanos(System.nanoTime() - startNanos);
+        }
+
+        public void recordNanos(long nanos) {
+            if (nanos < 0) nanos = 0;
+            buckets.incrementAndGet(bucket(nanos));
+            count.increment();
+            total.add(nanos);
+            long m;
+            while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos)) { /* retry */ }
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public long maxNanos() {
+            return max.get();
+        }
+
+        public double meanNanos() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) total.sum() / n;
+        }
+
+        /** Upper edge of the bucket holding the p-th fraction of the values (0 if none). */
+        public long percentileNanos(double p) {
+            long n = 0;
+            long[] snap = new long[buckets.length()];
+            for (int i = 0; i < snap.length; i++) n += snap[i] = buckets.get(i);
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(p * n)), seen = 0;
+            for (int i = 0; i < snap.length; i++) {
+                seen += snap[i];
+                if (seen >= rank) return Math.min(upper(i), max.get());
+            }
+            return max.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+            count.reset();
+            total.reset();
+            max.set(0);
+        }
+
+        private static int bucket(long v) {
+            if (v < LINEAR) return (int) v;
+            int msb = 63 - Long.numberOfLeadingZeros(v);
+            return LINEAR + (msb - 4) * 8 + (int) ((v >>> (msb - 3)) & 7);
+        }
+
+        private static long upper(int i) {
+            if (i < LINEAR) return i;
+            int msb = (i - LINEAR) / 8 + 4, sub = (i - LINEAR) % 8;
+            long low = (8L + sub) << (msb - 3), width = 1L << (msb - 3);
+            return low > Long.MAX_VALUE - width ? Long.MAX_VALUE : low + width - 1;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d p50=%.2fms p99=%.2fms max=%.2fms", count(),
+                    percentileNanos(0.50) / 1e6, percentileNanos(0.99) / 1e6, maxNanos() / 1e6);
+        }
+    }
+
+    /** Running total (rows parsed, bytes written, ...). */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long n) {
+            value.add(n);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /** The timer with this name, created on first use. Keep it in a static field on hot paths. */
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, n -> new Timer());
+    }
+
+    /** The counter with this name, created on first use. */
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /** Registers the MBean and starts the log line if metrics.logSeconds is set. Never fails. */
+    public static synchronized void start(String app) {
+        try {
+            ObjectName name = new ObjectName(app + ":type=Metrics");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), name);
+            }
+        } catch (Exception | LinkageError ex) {
+            // JMX is not available (or already set up differently); metrics still count
+            System.err.println("Metrics are not visible over JMX: " + ex);
+        }
+        long seconds = Long.getLong("metrics.logSeconds", 0);
+        if (seconds > 0) {
+            Thread t = new Thread(() -> {
+                try {
+                    while (true) {
+                        Thread.sleep(seconds * 1000);
+                        System.err.println("metrics " + app + ": " + summary());
+                    }
+                } catch (InterruptedException ignored) {
+                    // stop logging
+                }
+            }, "metrics-log");
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    /** Measures how long tasks wait for the Swing event thread, every 100 ms, as "edt.lag". */
+    public static void watchEdt() {
+        final Timer lag = timer("edt.lag");
+        Thread t = new Thread(() -> {
+            try {
+                while (true) {
+                    final long posted = System.nanoTime();
+                    SwingUtilities.invokeAndWait(() -> lag.record(posted));
+                    Thread.sleep(100);
+                }
+            } catch (Exception ignored) {
+                // interrupted, or the event thread is gone
+            }
+        }, "metrics-edt");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Every metric on one line. */
+    public static String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Timer> e : TIMERS.entrySet()) {
+            if (e.getValue().count() == 0) continue;
+            sb.append(e.getKey()).append(" [").append(e.getValue()).append("] ");
+        }
+        for (Map.Entry<String, Counter> e : COUNTERS.entrySet()) {
+            sb.append(e.getKey()).append('=').append(e.getValue().get()).append(' ');
+        }
+        return sb.length() == 0 ? "(nothing recorded)" : sb.toString().trim();
+    }
+
+    // Attributes: <timer>.count/.p50Ms/.p99Ms/.maxMs/.meanMs and <counter>; operation reset()
+    private static final class Bean implements DynamicMBean {
+        private static final String[] STATS = {"count", "p50Ms", "p99Ms", "maxMs", "meanMs"};
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Counter c = COUNTERS.get(attribute);
+            if (c != null) return c.get();
+            int dot = attribute.lastIndexOf('.');
+            Timer t = dot > 0 ? TIMERS.get(attribute.substring(0, dot)) : null;
+            if (t == null) throw new AttributeNotFoundException(attribute);
+            switch (attribute.substring(dot + 1)) {
+                case "count": return t.count();
+                case "p50Ms": return t.percentileNanos(0.50) / 1e6;
+                case "p99Ms": return t.percentileNanos(0.99) / 1e6;
+                case "maxMs": return t.maxNanos() / 1e6;
+                case "meanMs": return t.meanNanos() / 1e6;
+                default: throw new AttributeNotFoundException(attribute);
+            }
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String a : attributes) {
+                try {
+                    list.add(new Attribute(a, getAttribute(a)));
+                } catch (AttributeNotFoundException ignored) {
+                    // left out, as JMX expects
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            if (!"reset".equals(actionName)) throw new UnsupportedOperationException(actionName);
+            for (Timer t : TIMERS.values()) t.reset();
+            return null;
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attrs = new ArrayList<>();
+            for (String name : TIMERS.keySet()) {
+                for (String s : STATS) {
+                    attrs.add(new MBeanAttributeInfo(name + "." + s, s.equals("count") ? "long" : "double",
+                            name + " " + s, true, false, false));
+                }
+            }
+            for (String name : COUNTERS.keySet()) {
+                attrs.add(new MBeanAttributeInfo(name, "long", name, true, false, false));
+            }
+            return new MBeanInfo(Metrics.class.getName(), "Latency histograms and counters",
+                    attrs.toArray(new MBeanAttributeInfo[0]), null,
+                    new MBeanOperationInfo[]{new MBeanOperationInfo("reset", "Clears the latency histograms",
+                            null, "void", MBeanOperationInfo.ACTION)},
+                    null);
+        }
+    }
+}
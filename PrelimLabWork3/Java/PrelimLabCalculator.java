@@ -1,34 +1,60 @@
 /* PrelimLabCalculator.java
  *
- * Single-file Java Swing application (resizable, user-friendly layout)
+ * Java Swing application (resizable, user-friendly layout)
  * - raw attendance counts with late-enrollee handling
  * - automatic-fail (>=4 absences without excuse)
  * - attendance percentage computed from counts
  * - lab averages and class standing
  * - solves for required exam to reach Passing (75) and Excellent (100)
+ *   (the grading rules themselves are in GradeEngine)
  *
  * UI features:
  * - left pane: inputs (spinners, formatted fields)
  * - right pane: large results area with scroll and copy-friendly text
  * - Load Example dropdown with two test cases
  * - Reset, Calculate buttons
+ * - Live results: with "Live results" ticked the results follow the inputs as
+ *   they change (after a short pause in typing); results already worked out
+ *   for the same inputs are reused from a small LRU cache
+ * - Bulk Export: a report for every student of a roster CSV in one file
+ *   (see BulkExport.java for the roster columns and the command-line version)
+ * - What-if heatmap of the required exam over every absence count and lab
+ *   average (WhatIfDialog, backed by the precomputed WhatIfTable)
  * - Uses color combo: #9BE9D8 and #69328F
  *
- * Compile: javac PrelimLabCalculator.java
+ * The weights, targets and automatic-fail count come from grading.formula in the
+ * working directory (or -Dgrading.formula=path) when there is one, else the
+ * built-in formula; see GradingFormula.java for the format.
+ *
+ * Calculate latency, live-update latency (calculate.live) and event-thread lag are
+ * published over JMX as PrelimLabCalculator:type=Metrics (see Metrics.java).
+ *
+ * Compile: javac *.java
  * Run:     java PrelimLabCalculator
  */
 
 import javax.swing.*;
 import javax.swing.text.NumberFormatter;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
 import java.io.FileWriter;
-import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class PrelimLabCalculator extends JFrame {
 
-    private static final Color TEAL = new Color(0x9B, 0xE9, 0xD8);   // #9BE9D8
-    private static final Color PURPLE = new Color(0x69, 0x32, 0x8F); // #69328F
+    static final Color TEAL = new Color(0x9B, 0xE9, 0xD8);   // #9BE9D8
+    static final Color PURPLE = new Color(0x69, 0x32, 0x8F); // #69328F
+
+    private static final Metrics.Timer CALCULATE_TIME = Metrics.timer("calculate");
+    private static final Metrics.Timer LIVE_TIME = Metrics.timer("calculate.live");
+    private static final Metrics.Counter CACHE_HITS = Metrics.counter("calculate.cacheHits");
+
+    private static final int LIVE_DELAY_MS = 150;
+    private static final int CACHE_SIZE = 256;
+    private static final String ENTER_LABS = "Enter all three lab grades (0 - 100) to see results.\n";
 
     // Inputs
     private JSpinner totalWeeksSpinner;
@@ -47,13 +73,79 @@ public class PrelimLabCalculator extends JFrame {
     private JButton calculateBtn;
     private JButton resetBtn;
     private JButton exportBtn;
+    private JButton bulkExportBtn;
+    private JButton whatIfBtn;
+    private JCheckBox liveCheckbox;
+    private Timer liveTimer;
+
+    private final GradingFormula formula;
 
     // Results
     private JTextArea resultsArea;
-    private final DecimalFormat df = new DecimalFormat("#0.00");
+    private final StringBuilder out = new StringBuilder(1024);
+    private String shownText;
+
+    // Results for recent input states, least recently used first
+    private final Map<Inputs, Output> cache = new LinkedHashMap<Inputs, Output>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Inputs, Output> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    // Everything the results depend on
+    private static final class Inputs {
+        final int totalWeeks;
+        final boolean late;
+        final int missedBefore;
+        final int absences;
+        final boolean hasExcuse;
+        final double lab1, lab2, lab3;
+
+        Inputs(int totalWeeks, boolean late, int missedBefore, int absences, boolean hasExcuse,
+               double lab1, double lab2, double lab3) {
+            this.totalWeeks = totalWeeks;
+            this.late = late;
+            this.missedBefore = missedBefore;
+            this.absences = absences;
+            this.hasExcuse = hasExcuse;
+            this.lab1 = lab1;
+            this.lab2 = lab2;
+            this.lab3 = lab3;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Inputs)) return false;
+            Inputs i = (Inputs) o;
+            return totalWeeks == i.totalWeeks && late == i.late && missedBefore == i.missedBefore
+                    && absences == i.absences && hasExcuse == i.hasExcuse && Double.compare(lab1, i.lab1) == 0
+                    && Double.compare(lab2, i.lab2) == 0 && Double.compare(lab3, i.lab3) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = ((totalWeeks * 31 + missedBefore) * 31 + absences) * 4 + (late ? 2 : 0) + (hasExcuse ? 1 : 0);
+            h = h * 31 + Double.hashCode(lab1);
+            h = h * 31 + Double.hashCode(lab2);
+            return h * 31 + Double.hashCode(lab3);
+        }
+    }
+
+    // The results text, or an input error message
+    private static final class Output {
+        final boolean error;
+        final String text;
 
-    public PrelimLabCalculator() {
+        Output(boolean error, String text) {
+            this.error = error;
+            this.text = text;
+        }
+    }
+
+    public PrelimLabCalculator(GradingFormula formula) {
         super("Prelim Lab Grade Calculator");
+        this.formula = formula;
         initLookAndFeel();
         initComponents();
         layoutComponents();
@@ -109,6 +201,20 @@ public class PrelimLabCalculator extends JFrame {
         exportBtn = new JButton("Export TXT");
         exportBtn.setPreferredSize(new Dimension(110, 36));
 
+        bulkExportBtn = new JButton("Bulk Export...");
+        bulkExportBtn.setPreferredSize(new Dimension(120, 36));
+        bulkExportBtn.setToolTipText("Write a report for every student in a roster CSV");
+
+        whatIfBtn = new JButton("What-if...");
+        whatIfBtn.setPreferredSize(new Dimension(110, 36));
+        whatIfBtn.setToolTipText("Required exam for every absence count and lab average");
+
+        liveCheckbox = new JCheckBox("Live results", true);
+        liveCheckbox.setOpaque(false);
+        liveCheckbox.setToolTipText("Update the results as the inputs change");
+        liveTimer = new Timer(LIVE_DELAY_MS, e -> onLiveUpdate());
+        liveTimer.setRepeats(false);
+
         // Example loader
         exampleBox = new JComboBox<>(new String[] {
                 "Load example...","Example 1 — Typical student","Example 2 — Late enrollee"
@@ -185,6 +291,9 @@ public class PrelimLabCalculator extends JFrame {
         controls.add(calculateBtn);
         controls.add(resetBtn);
         controls.add(exportBtn);
+        controls.add(bulkExportBtn);
+        controls.add(whatIfBtn);
+        controls.add(liveCheckbox);
 
         // Put attendance and labs stacked
         c.gridx = 0; c.gridy = 0; c.weightx = 1.0; inputs.add(attendanceCard, c);
@@ -202,8 +311,7 @@ public class PrelimLabCalculator extends JFrame {
                 BorderFactory.createLineBorder(PURPLE,2), "Results (copy-paste friendly)"));
 
         // Info footer
-        JLabel footer = new JLabel("Formula: PrelimGrade = (PrelimExam × 0.30) + (ClassStanding × 0.70)   "
-                + "ClassStanding = (Attendance% × 0.40) + (LabAvg × 0.60)");
+        JLabel footer = new JLabel(formula.describe());
         footer.setForeground(Color.DARK_GRAY);
 
         resultsPanel.add(scroll, BorderLayout.CENTER);
@@ -253,6 +361,25 @@ public class PrelimLabCalculator extends JFrame {
         calculateBtn.addActionListener(e -> onCalculate());
         resetBtn.addActionListener(e -> resetForm());
         exportBtn.addActionListener(e -> exportResults());
+        bulkExportBtn.addActionListener(e -> bulkExport());
+
+        // live results: any change restarts the timer, so a burst of edits recalculates once
+        totalWeeksSpinner.addChangeListener(e -> scheduleLiveUpdate());
+        missedBeforeSpinner.addChangeListener(e -> scheduleLiveUpdate());
+        absencesSpinner.addChangeListener(e -> scheduleLiveUpdate());
+        lateEnrolleeCheckbox.addItemListener(e -> scheduleLiveUpdate());
+        hasExcuseCheckbox.addItemListener(e -> scheduleLiveUpdate());
+        lab1Field.addPropertyChangeListener("value", e -> scheduleLiveUpdate());
+        lab2Field.addPropertyChangeListener("value", e -> scheduleLiveUpdate());
+        lab3Field.addPropertyChangeListener("value", e -> scheduleLiveUpdate());
+        liveCheckbox.addItemListener(e -> scheduleLiveUpdate());
+        whatIfBtn.addActionListener(e -> new WhatIfDialog(this, formula, (Integer) totalWeeksSpinner.getValue(),
+                lateEnrolleeCheckbox.isSelected() ? (Integer) missedBeforeSpinner.getValue() : 0,
+                hasExcuseCheckbox.isSelected()).setVisible(true));
+    }
+
+    private void scheduleLiveUpdate() {
+        if (liveCheckbox.isSelected()) liveTimer.restart();
     }
 
     private void resetForm() {
@@ -265,111 +392,76 @@ public class PrelimLabCalculator extends JFrame {
         lab1Field.setValue(null);
         lab2Field.setValue(null);
         lab3Field.setValue(null);
-        resultsArea.setText("");
+        show("");
         exampleBox.setSelectedIndex(0);
     }
 
+    // Timed up to the results being shown; the error paths wait on a dialog, so they are not recorded
     private void onCalculate() {
-        // Read inputs with validation
-        int totalWeeks = (Integer) totalWeeksSpinner.getValue();
-        boolean late = lateEnrolleeCheckbox.isSelected();
-        int missedBefore = (Integer) missedBeforeSpinner.getValue();
-        int absences = (Integer) absencesSpinner.getValue();
-        boolean hasExcuse = hasExcuseCheckbox.isSelected();
-
-        Double lab1 = getDoubleFromField(lab1Field);
-        Double lab2 = getDoubleFromField(lab2Field);
-        Double lab3 = getDoubleFromField(lab3Field);
-
-        if (lab1 == null || lab2 == null || lab3 == null) {
+        long t0 = System.nanoTime();
+        Inputs in = readInputs();
+        if (in == null) {
             JOptionPane.showMessageDialog(this, "Please enter valid lab grades (0 - 100).",
                     "Input error", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        if (late && missedBefore >= totalWeeks) {
-            JOptionPane.showMessageDialog(this, "Weeks missed before enrollment must be less than total weeks.",
-                    "Input error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-        int countedWeeks = late ? (totalWeeks - missedBefore) : totalWeeks;
-        if (countedWeeks <= 0) {
-            JOptionPane.showMessageDialog(this, "Counted weeks must be at least 1.", "Input error", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-        if (absences < 0 || absences > countedWeeks) {
-            JOptionPane.showMessageDialog(this, "Absences must be between 0 and the counted weeks.", "Input error", JOptionPane.WARNING_MESSAGE);
+        Output o = results(in);
+        if (o.error) {
+            JOptionPane.showMessageDialog(this, o.text, "Input error", JOptionPane.WARNING_MESSAGE);
             return;
         }
+        show(o.text);
+        CALCULATE_TIME.record(t0);
+    }
 
-        // Automatic fail rule
-        if (absences >= 4 && !hasExcuse) {
-            StringBuilder failMsg = new StringBuilder();
-            failMsg.append("AUTOMATIC FAIL\n");
-            failMsg.append("-------------------------------\n");
-            failMsg.append("Reason: 4 or more absences without a valid excuse.\n");
-            failMsg.append(String.format("Total prelim weeks counted: %d%n", countedWeeks));
-            failMsg.append(String.format("Absences reported         : %d%n", absences));
-            resultsArea.setText(failMsg.toString());
+    // Live mode: like Calculate, but problems go to the results area instead of a dialog.
+    // Timed on its own, and only when new results were rendered (not prompts, errors or cache hits)
+    private void onLiveUpdate() {
+        long t0 = System.nanoTime();
+        Inputs in = readInputs();
+        if (in == null) {
+            show(ENTER_LABS);
             return;
         }
+        boolean cached = cache.containsKey(in);
+        Output o = results(in);
+        show(o.text);
+        if (!cached && !o.error) LIVE_TIME.record(t0);
+    }
 
-        // compute attendance percentage
-        int attendedWeeks = countedWeeks - absences;
-        double attendancePct = (attendedWeeks / (double) countedWeeks) * 100.0;
-
-        // lab average and class standing
-        double labAvg = (lab1 + lab2 + lab3) / 3.0;
-        double classStanding = (attendancePct * 0.40) + (labAvg * 0.60);
-
-        // Required exams using solved formula:
-        // PrelimGrade = (Exam * 0.30) + (ClassStanding * 0.70)
-        // RequiredExam = (Target - (ClassStanding * 0.70)) / 0.30
-        double requiredPass = (75.0 - (classStanding * 0.70)) / 0.30;
-        double requiredExcellent = (100.0 - (classStanding * 0.70)) / 0.30;
-
-        // Build output (copy-friendly)
-        StringBuilder out = new StringBuilder();
-        out.append("Computed values\n");
-        out.append("-------------------------------\n");
-        out.append(String.format("Total prelim weeks counted : %d%n", countedWeeks));
-        if (late) out.append(String.format("Late enrollee, weeks missed before enrollment: %d%n", missedBefore));
-        out.append(String.format("Attended weeks             : %d%n", attendedWeeks));
-        out.append(String.format("Attendance percentage      : %s%%%n", df.format(attendancePct)));
-        out.append(String.format("Lab Work 1                 : %s%n", df.format(lab1)));
-        out.append(String.format("Lab Work 2                 : %s%n", df.format(lab2)));
-        out.append(String.format("Lab Work 3                 : %s%n", df.format(lab3)));
-        out.append(String.format("Lab Work Average           : %s%n", df.format(labAvg)));
-        out.append(String.format("Class Standing (component for final, 70%%) : %s%n", df.format(classStanding)));
-        out.append("\n");
-
-        out.append("Required Prelim Exam to PASS (final = 75)\n");
-        out.append("-------------------------------\n");
-        if (requiredPass <= 0) {
-            out.append("Required Exam (pass)   : 0.00\n");
-            out.append("Remark                 : No exam needed to reach a passing final grade.\n");
-        } else if (requiredPass > 100) {
-            out.append("Required Exam (pass)   : >100\n");
-            out.append("Remark                 : Even a perfect exam cannot reach a passing final grade.\n");
-        } else {
-            out.append(String.format("Required Exam (pass)   : %s%n", df.format(requiredPass)));
-            out.append(String.format("Remark                 : You need at least %s%% on the exam to reach 75.%n", df.format(requiredPass)));
-        }
-        out.append("\n");
-
-        out.append("Required Prelim Exam to ACHIEVE EXCELLENT (final = 100)\n");
-        out.append("-------------------------------\n");
-        if (requiredExcellent <= 0) {
-            out.append("Required Exam (excellent): 0.00\n");
-            out.append("Remark                   : Current standing already yields excellent without exam.\n");
-        } else if (requiredExcellent > 100) {
-            out.append("Required Exam (excellent): >100\n");
-            out.append("Remark                   : Even a perfect exam cannot reach excellent.\n");
-        } else {
-            out.append(String.format("Required Exam (excellent): %s%n", df.format(requiredExcellent)));
-            out.append(String.format("Remark                   : You need at least %s%% on the exam to reach 100.%n", df.format(requiredExcellent)));
+    private void show(String text) {
+        if (text == shownText) return; // cached results are the same String
+        shownText = text;
+        resultsArea.setText(text);
+    }
+
+    // The form's current state, or null while a lab grade is missing
+    private Inputs readInputs() {
+        Double lab1 = getDoubleFromField(lab1Field);
+        Double lab2 = getDoubleFromField(lab2Field);
+        Double lab3 = getDoubleFromField(lab3Field);
+        if (lab1 == null || lab2 == null || lab3 == null) return null;
+        return new Inputs((Integer) totalWeeksSpinner.getValue(), lateEnrolleeCheckbox.isSelected(),
+                (Integer) missedBeforeSpinner.getValue(), (Integer) absencesSpinner.getValue(),
+                hasExcuseCheckbox.isSelected(), lab1, lab2, lab3);
+    }
+
+    private Output results(Inputs in) {
+        Output o = cache.get(in);
+        if (o != null) {
+            CACHE_HITS.increment();
+            return o;
         }
+        o = render(in);
+        cache.put(in, o);
+        return o;
+    }
 
-        resultsArea.setText(out.toString());
+    private Output render(Inputs in) {
+        out.setLength(0);
+        byte status = GradeReport.append(out, formula, in.totalWeeks, in.late, in.missedBefore, in.absences, in.hasExcuse,
+                in.lab1, in.lab2, in.lab3);
+        return new Output(GradeEngine.inputError(status) != null, out.toString());
     }
 
     private Double getDoubleFromField(JFormattedTextField f) {
@@ -402,10 +494,60 @@ public class PrelimLabCalculator extends JFrame {
         }
     }
 
+    private void bulkExport() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Choose the roster CSV");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        final File roster = chooser.getSelectedFile();
+        chooser.setDialogTitle("Save the reports as");
+        chooser.setSelectedFile(new File(roster.getParentFile(), roster.getName().replaceFirst("(\\.csv)?$", "_reports.txt")));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        final File out = chooser.getSelectedFile();
+
+        bulkExportBtn.setEnabled(false);
+        new SwingWorker<BulkExport.Summary, Void>() {
+            @Override
+            protected BulkExport.Summary doInBackground() throws Exception {
+                return BulkExport.export(roster, out, 0, formula);
+            }
+
+            @Override
+            protected void done() {
+                bulkExportBtn.setEnabled(true);
+                try {
+                    BulkExport.Summary s = get();
+                    JOptionPane.showMessageDialog(PrelimLabCalculator.this, String.format(
+                            "Wrote %d reports to %s (%d with input errors).", s.students, out.getName(), s.errors),
+                            "Bulk Export", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(PrelimLabCalculator.this, "Bulk export failed: " + cause.getMessage(),
+                            "Export error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
     public static void main(String[] args) {
+        Metrics.start("PrelimLabCalculator");
+        Metrics.watchEdt();
+        GradingFormula loaded;
+        String problem = null;
+        try {
+            loaded = GradingFormula.load();
+        } catch (IOException ex) {
+            loaded = GradingFormula.DEFAULT;
+            problem = ex.getMessage();
+        }
+        final GradingFormula formula = loaded;
+        final String warning = problem;
         SwingUtilities.invokeLater(() -> {
-            PrelimLabCalculator app = new PrelimLabCalculator();
+            PrelimLabCalculator app = new PrelimLabCalculator(formula);
             app.setVisible(true);
+            if (warning != null) {
+                JOptionPane.showMessageDialog(app, "Could not load the grading formula; using the built-in one.\n" + warning,
+                        "Grading formula", JOptionPane.WARNING_MESSAGE);
+            }
         });
     }
 }
@@ -0,0 +1,202 @@
+/* WhatIfDialog.java
+ *
+ * What-if sweep: a heatmap of the exam score required for every number of
+ * absences (rows) and lab average (columns) at the chosen total weeks, weeks
+ * missed before enrollment and excuse, read straight out of a WhatIfTable.
+ *
+ * - green = little or no exam needed, red = close to 100, dark = >100
+ * - hatched rows are automatic fails (too many absences without an excuse)
+ * - hover a cell for its exact inputs and required score
+ * - the lab step can be changed; the table is rebuilt in the background
+ */
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseMotionAdapter;
+
+public class WhatIfDialog extends JDialog {
+
+    private static final double[] STEPS = {1.0, 0.5, 0.25, 0.1};
+    private static final Color NOT_REACHABLE = new Color(0x3A, 0x1A, 0x50);
+
+    private final JSpinner totalWeeksSpinner;
+    private final JSpinner missedBeforeSpinner;
+    private final JCheckBox hasExcuseCheckbox;
+    private final JComboBox<String> targetBox;
+    private final JComboBox<String> stepBox;
+    private final JLabel cellLabel;
+    private final Heatmap heatmap;
+
+    private final GradingFormula formula;
+    private WhatIfTable table;
+
+    public WhatIfDialog(Frame owner, GradingFormula formula, int totalWeeks, int missedBefore, boolean hasExcuse) {
+        super(owner, "What-if: required prelim exam", false);
+        this.formula = formula;
+
+        totalWeeksSpinner = new JSpinner(new SpinnerNumberModel(totalWeeks, 1, 52, 1));
+        missedBeforeSpinner = new JSpinner(new SpinnerNumberModel(missedBefore, 0, 52, 1));
+        hasExcuseCheckbox = new JCheckBox("Has valid excuse?", hasExcuse);
+        targetBox = new JComboBox<>(new String[] {"to PASS (" + GradingFormula.number(formula.passing()) + ")",
+                "for EXCELLENT (" + GradingFormula.number(formula.excellent()) + ")"});
+        stepBox = new JComboBox<>(new String[] {"Lab step 1", "Lab step 0.5", "Lab step 0.25", "Lab step 0.1"});
+        stepBox.setSelectedIndex(1);
+        cellLabel = new JLabel(" ");
+        heatmap = new Heatmap();
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 6));
+        controls.setBackground(PrelimLabCalculator.TEAL);
+        controls.add(new JLabel("Total weeks:"));
+        controls.add(totalWeeksSpinner);
+        controls.add(new JLabel("Missed before enrollment:"));
+        controls.add(missedBeforeSpinner);
+        controls.add(hasExcuseCheckbox);
+        controls.add(new JLabel("Required exam"));
+        controls.add(targetBox);
+        controls.add(stepBox);
+
+        JPanel root = new JPanel(new BorderLayout(8, 8));
+        root.setBackground(PrelimLabCalculator.TEAL);
+        root.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        heatmap.setBorder(BorderFactory.createTitledBorder(
+                BorderFactory.createLineBorder(PrelimLabCalculator.PURPLE, 2), "Absences (rows) x Lab average (columns)"));
+        root.add(controls, BorderLayout.NORTH);
+        root.add(heatmap, BorderLayout.CENTER);
+        root.add(cellLabel, BorderLayout.SOUTH);
+        setContentPane(root);
+
+        totalWeeksSpinner.addChangeListener(e -> heatmap.repaint());
+        missedBeforeSpinner.addChangeListener(e -> heatmap.repaint());
+        hasExcuseCheckbox.addItemListener(e -> heatmap.repaint());
+        targetBox.addActionListener(e -> heatmap.repaint());
+        stepBox.addActionListener(e -> rebuild());
+
+        setSize(900, 560);
+        setLocationRelativeTo(owner);
+        rebuild();
+    }
+
+    // Fills a new table off the event thread, then shows it
+    private void rebuild() {
+        final double step = STEPS[stepBox.getSelectedIndex()];
+        stepBox.setEnabled(false);
+        cellLabel.setText("Computing every combination...");
+        new SwingWorker<WhatIfTable, Void>() {
+            private long start;
+
+            @Override
+            protected WhatIfTable doInBackground() {
+                start = System.nanoTime();
+                return new WhatIfTable(formula, 52, step);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    table = get();
+                    cellLabel.setText(String.format("%,d combinations computed in %.0f ms",
+                            (long) table.index(52, 52, table.labSteps() - 1) + 1, (System.nanoTime() - start) / 1e6));
+                } catch (Exception ex) {
+                    cellLabel.setText("Could not compute the table: " + ex.getMessage());
+                }
+                stepBox.setEnabled(true);
+                heatmap.repaint();
+            }
+        }.execute();
+    }
+
+    private int countedWeeks() {
+        return (Integer) totalWeeksSpinner.getValue() - (Integer) missedBeforeSpinner.getValue();
+    }
+
+    private short required(int index) {
+        return targetBox.getSelectedIndex() == 0 ? table.requiredPass(index) : table.requiredExcellent(index);
+    }
+
+    private boolean autoFail(int absences) {
+        int limit = formula.autoFailAbsences();
+        return limit > 0 && absences >= limit && !hasExcuseCheckbox.isSelected();
+    }
+
+    // green (0) -> yellow (50) -> red (100)
+    private static Color heat(short hundredths) {
+        if (hundredths == WhatIfTable.NOT_REACHABLE) return NOT_REACHABLE;
+        float t = hundredths / 10000f;
+        return t < 0.5f ? new Color(2 * t, 0.8f, 0.2f) : new Color(1f, 0.8f * (2 - 2 * t), 0.2f);
+    }
+
+    private class Heatmap extends JPanel {
+        private static final int AXIS = 36;
+
+        Heatmap() {
+            setBackground(Color.WHITE);
+            addMouseMotionListener(new MouseMotionAdapter() {
+                @Override
+                public void mouseMoved(MouseEvent e) {
+                    describe(e.getX(), e.getY());
+                }
+            });
+        }
+
+        // Plot area inside the border, leaving room for the axis labels
+        private Rectangle plot() {
+            Insets in = getInsets();
+            return new Rectangle(in.left + AXIS, in.top + 4, getWidth() - in.left - in.right - AXIS - 8,
+                    getHeight() - in.top - in.bottom - AXIS - 4);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g0) {
+            super.paintComponent(g0);
+            Graphics2D g = (Graphics2D) g0;
+            int counted = countedWeeks();
+            if (table == null) return;
+            if (counted < 1) {
+                g.setColor(Color.DARK_GRAY);
+                g.drawString(GradeEngine.inputError(GradeEngine.MISSED_BEFORE_TOO_HIGH), plot().x, plot().y + 20);
+                return;
+            }
+            Rectangle p = plot();
+            int rows = counted + 1, cols = table.labSteps();
+            for (int a = 0; a < rows; a++) {
+                int y0 = p.y + a * p.height / rows, y1 = p.y + (a + 1) * p.height / rows;
+                for (int l = 0; l < cols; l++) {
+                    int x0 = p.x + l * p.width / cols, x1 = p.x + (l + 1) * p.width / cols;
+                    g.setColor(heat(required(table.index(counted, a, l))));
+                    g.fillRect(x0, y0, Math.max(1, x1 - x0), Math.max(1, y1 - y0));
+                }
+                if (autoFail(a)) {
+                    g.setColor(new Color(255, 255, 255, 140));
+                    for (int x = p.x; x < p.x + p.width; x += 8) g.drawLine(x, y1 - 1, Math.min(x + (y1 - y0), p.x + p.width), y0);
+                }
+            }
+
+            g.setColor(PrelimLabCalculator.PURPLE);
+            FontMetrics fm = g.getFontMetrics();
+            int every = Math.max(1, (rows * fm.getHeight()) / Math.max(1, p.height) + 1);
+            for (int a = 0; a < rows; a += every) {
+                int y = p.y + a * p.height / rows + (p.height / rows + fm.getAscent()) / 2;
+                g.drawString(String.valueOf(a), p.x - fm.stringWidth(String.valueOf(a)) - 6, y);
+            }
+            for (int lab = 0; lab <= 100; lab += 10) {
+                int x = p.x + (int) ((table.column(lab) + 0.5) * p.width / cols);
+                g.drawString(String.valueOf(lab), x - fm.stringWidth(String.valueOf(lab)) / 2, p.y + p.height + fm.getAscent() + 4);
+            }
+        }
+
+        private void describe(int x, int y) {
+            Rectangle p = plot();
+            int counted = countedWeeks();
+            if (table == null || counted < 1 || !p.contains(x, y)) return;
+            int a = (y - p.y) * (counted + 1) / p.height;
+            int l = (x - p.x) * table.labSteps() / p.width;
+            int index = table.index(counted, a, l);
+            if (index < 0) return;
+            String text = String.format("Counted weeks %d, absences %d, lab average %.2f: required exam %s %s",
+                    counted, a, table.labAverage(l), targetBox.getSelectedIndex() == 0 ? "to pass" : "for excellent",
+                    WhatIfTable.format(required(index)));
+            cellLabel.setText(autoFail(a) ? text + "  (AUTOMATIC FAIL without an excuse)" : text);
+        }
+    }
+}
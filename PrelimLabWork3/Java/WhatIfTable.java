@@ -0,0 +1,134 @@
+/* WhatIfTable.java
+ *
+ * Every answer the calculator can give, worked out ahead of time: the exam score
+ * required to pass and to reach excellent under a GradingFormula, for each number
+ * of counted weeks (1 .. maxWeeks), each number of absences (0 .. counted weeks)
+ * and each lab average from 0 to 100 in steps of labStep (as three equal labs).
+ *
+ * Total weeks and weeks missed before enrollment only matter through
+ * counted = total - missed, so one row per (counted, absences) covers every
+ * combination of them. Values are stored as shorts in hundredths, rounded like the
+ * calculator's two-decimal display:
+ *
+ *   0 .. 10000     0.00 .. 100.00 (0 also when no exam is needed at all)
+ *   NOT_REACHABLE  more than 100 is needed
+ *
+ * The table is filled on a parallel stream, one counted-weeks block per task, each
+ * row of lab averages going through the formula a block at a time, and
+ * read with index() + requiredPass()/requiredExcellent() in constant time. 52 weeks
+ * at a 0.5 step is 1,430 rows x 201 lab averages, a little over a megabyte.
+ * Whether the student auto-fails (absences without excuse) is left to the caller,
+ * as it does not change the numbers.
+ */
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public final class WhatIfTable {
+
+    public static final short NOT_REACHABLE = 10001;
+
+    private final GradingFormula formula;
+    private final int maxWeeks;
+    private final double labStep;
+    private final int labSteps;
+    // rowStart[c] = first row of counted weeks c; row = rowStart[c] + absences
+    private final int[] rowStart;
+    private final short[] requiredPass;
+    private final short[] requiredExcellent;
+
+    public WhatIfTable(GradingFormula formula, int maxWeeks, double labStep) {
+        if (maxWeeks < 1) throw new IllegalArgumentException("maxWeeks must be at least 1");
+        if (!(labStep > 0 && labStep <= 100)) throw new IllegalArgumentException("labStep must be in (0, 100]");
+        this.formula = formula;
+        this.maxWeeks = maxWeeks;
+        this.labStep = labStep;
+        this.labSteps = (int) Math.ceil(100.0 / labStep - 1e-9) + 1;
+        rowStart = new int[maxWeeks + 2];
+        for (int c = 1; c <= maxWeeks; c++) rowStart[c + 1] = rowStart[c] + c + 1;
+        int cells = rowStart[maxWeeks + 1] * labSteps;
+        requiredPass = new short[cells];
+        requiredExcellent = new short[cells];
+        IntStream.rangeClosed(1, maxWeeks).parallel().forEach(this::fill);
+    }
+
+    // All absences and lab averages for one number of counted weeks
+    private void fill(int counted) {
+        GradingFormula.Workspace w = formula.newWorkspace();
+        double[] attendance = new double[labSteps], lab = new double[labSteps];
+        for (int l = 0; l < labSteps; l++) lab[l] = labAverage(l);
+        for (int absences = 0; absences <= counted; absences++) {
+            Arrays.fill(attendance, GradeEngine.attendancePct(counted, absences));
+            int base = (rowStart[counted] + absences) * labSteps;
+            for (int from = 0; from < labSteps; from += GradingFormula.BLOCK) {
+                int n = Math.min(GradingFormula.BLOCK, labSteps - from);
+                formula.evaluate(w, attendance, lab, lab, lab, from, n);
+                for (int j = 0; j < n; j++) {
+                    requiredPass[base + from + j] = encode(w.requiredExam(formula.passing(), j));
+                    requiredExcellent[base + from + j] = encode(w.requiredExam(formula.excellent(), j));
+                }
+            }
+        }
+    }
+
+    public GradingFormula formula() {
+        return formula;
+    }
+
+    public int maxWeeks() {
+        return maxWeeks;
+    }
+
+    public double labStep() {
+        return labStep;
+    }
+
+    /** Number of lab-average columns; column l is labAverage(l). */
+    public int labSteps() {
+        return labSteps;
+    }
+
+    public double labAverage(int column) {
+        return Math.min(100.0, column * labStep);
+    }
+
+    /** Nearest column for a lab average in 0..100. */
+    public int column(double labAvg) {
+        return (int) Math.round(Math.max(0.0, Math.min(100.0, labAvg)) / labStep);
+    }
+
+    /** Cell for these inputs, or -1 if they are outside the table or invalid (see GradeEngine.inputError). */
+    public int index(int countedWeeks, int absences, int column) {
+        if (countedWeeks < 1 || countedWeeks > maxWeeks || absences < 0 || absences > countedWeeks
+                || column < 0 || column >= labSteps) return -1;
+        return (rowStart[countedWeeks] + absences) * labSteps + column;
+    }
+
+    public int index(int totalWeeks, boolean late, int missedBefore, int absences, double labAvg) {
+        if (late && missedBefore >= totalWeeks) return -1;
+        return index(late ? totalWeeks - missedBefore : totalWeeks, absences, column(labAvg));
+    }
+
+    /** Exam needed to pass, in hundredths (see the class comment). */
+    public short requiredPass(int index) {
+        return requiredPass[index];
+    }
+
+    /** Exam needed for excellent, in hundredths (see the class comment). */
+    public short requiredExcellent(int index) {
+        return requiredExcellent[index];
+    }
+
+    static short encode(double required) {
+        if (required <= 0) return 0;
+        if (required > 100) return NOT_REACHABLE;
+        return (short) Math.rint(required * 100);
+    }
+
+    /** "0.00", "87.50" or ">100", as the calculator shows it. */
+    public static String format(short hundredths) {
+        if (hundredths == NOT_REACHABLE) return ">100";
+        int frac = hundredths % 100;
+        return (hundredths / 100) + (frac < 10 ? ".0" : ".") + frac;
+    }
+}
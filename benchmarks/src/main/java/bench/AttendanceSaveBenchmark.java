@@ -0,0 +1,143 @@
+/* AttendanceSaveBenchmark.java
+ *
+ * The Attendance Tracker's Save button, measured up to the moment it reports
+ * "Attendance saved", in a fresh temporary directory per trial:
+ *
+ * - save: AttendanceWriter.append(record) and waiting for its future, as the tracker
+ *   does, for each durability policy and flush interval (the tracker's default is
+ *   SYNC with 20 ms, so a lone save waits out the interval)
+ * - saveBurst: BURST records queued at once (a kiosk rush or a roll-sheet import),
+ *   showing what group commit buys; scored per record
+ * - legacyTextSave: the old Save, opening attendance_records.txt with a FileWriter,
+ *   writing the five-line block and closing it
+ */
+package bench;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttendanceSaveBenchmark {
+
+    static final int RECORDS = 4096;
+    static final int BURST = 64;
+
+    @State(Scope.Benchmark)
+    public static class Log {
+        @Param({"SYNC", "WRITE"})
+        AttendanceWriter.Durability durability;
+
+        @Param({"0", "20"})
+        long flushMillis;
+
+        Path dir;
+        AttendanceWriter writer;
+        AttendanceRecord[] records;
+        List<AttendanceRecord> recordList;
+        final AtomicInteger next = new AtomicInteger();
+
+        @Setup
+        public void setup() throws IOException {
+            dir = Files.createTempDirectory("attendance-bench");
+            writer = new AttendanceWriter(dir.resolve("attendance_records.bin").toFile(), flushMillis, durability);
+            records = SyntheticData.attendance(RECORDS);
+            recordList = Arrays.asList(records);
+        }
+
+        AttendanceRecord nextRecord() {
+            return records[next.getAndIncrement() & (RECORDS - 1)];
+        }
+
+        List<AttendanceRecord> nextBurst() {
+            int from = (next.getAndAdd(BURST) & (RECORDS - 1)) / BURST * BURST;
+            return recordList.subList(from, from + BURST);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            writer.close();
+            deleteTree(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class TextLog {
+        Path dir;
+        File file;
+        AttendanceRecord[] records;
+        String[] timeText; // the form already shows Time In as text
+        int next;
+
+        @Setup
+        public void setup() throws IOException {
+            dir = Files.createTempDirectory("attendance-bench");
+            file = dir.resolve("attendance_records.txt").toFile();
+            records = SyntheticData.attendance(RECORDS);
+            timeText = new String[RECORDS];
+            for (int i = 0; i < RECORDS; i++) timeText[i] = records[i].timeInText();
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            deleteTree(dir);
+        }
+    }
+
+    @Benchmark
+    public void save(Log log) {
+        log.writer.append(log.nextRecord()).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void saveBurst(Log log) {
+        log.writer.appendAll(log.nextBurst()).join();
+    }
+
+    @Benchmark
+    public void legacyTextSave(TextLog log) throws IOException {
+        int i = log.next++ & (RECORDS - 1);
+        AttendanceRecord r = log.records[i];
+        try (Writer writer = new FileWriter(log.file, true)) {
+            writer.write("Name: " + r.name + "\n");
+            writer.write("Course/Year: " + r.course + "\n");
+            writer.write("Time In: " + log.timeText[i] + "\n");
+            writer.write("E-Signature: " + r.signature + "\n");
+            writer.write("----------------------------------\n");
+        }
+    }
+
+    static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/* BaselineCompare.java
+ *
+ * Compares two JMH result files in CSV format (a baseline and a new run):
+ *
+ *   java -jar benchmarks.jar compare baselines/old.csv results.csv [--threshold 10]
+ *
+ * Benchmarks are matched on name, mode, threads and parameters. For each one the old
+ * and new score and the change are printed, marked
+ *
+ *   REGRESSION  worse by more than the threshold (percent, default 10) and by more
+ *               than the two error margins together, so noise alone does not count
+ *   improved    better by as much
+ *
+ * "Worse" is lower for throughput and higher for the time modes. Secondary results
+ * (profiler rows such as ":gc.alloc.rate") are ignored. Exits with 1 if anything
+ * regressed, so it can gate a build.
+ */
+package bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public final class BaselineCompare {
+
+    private static final double DEFAULT_THRESHOLD = 10.0;
+
+    private BaselineCompare() {}
+
+    /** One primary result line. */
+    static final class Score {
+        final String name;
+        final String mode;
+        final String params;
+        final double score;
+        final double error;
+        final String unit;
+
+        Score(String name, String mode, String params, double score, double error, String unit) {
+            this.name = name;
+            this.mode = mode;
+            this.params = params;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) throws IOException {
+        double threshold = DEFAULT_THRESHOLD;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threshold") && i + 1 < args.length) threshold = Double.parseDouble(args[++i]);
+            else files.add(args[i]);
+        }
+        if (files.size() != 2) {
+            System.err.println("Usage: compare <baseline.csv> <results.csv> [--threshold percent]");
+            return 2;
+        }
+        Map<String, Score> before = read(files.get(0));
+        Map<String, Score> after = read(files.get(1));
+
+        List<String[]> table = new ArrayList<>();
+        table.add(new String[] {"Benchmark", "Params", "Mode", "Unit", "Baseline", "New", "Change", ""});
+        int regressions = 0;
+        for (Map.Entry<String, Score> e : after.entrySet()) {
+            Score n = e.getValue(), o = before.get(e.getKey());
+            if (o == null) {
+                table.add(row(n, "", number(n.score), "", "new"));
+                continue;
+            }
+            if (!o.unit.equals(n.unit)) {
+                table.add(row(n, number(o.score) + " " + o.unit, number(n.score), "", "unit changed"));
+                continue;
+            }
+            double change = (n.score - o.score) / o.score * 100.0;
+            double worse = n.higherIsBetter() ? -change : change;
+            boolean significant = Math.abs(n.score - o.score) > margin(o) + margin(n);
+            String verdict = "";
+            if (significant && worse > threshold) {
+                verdict = "REGRESSION";
+                regressions++;
+            } else if (significant && -worse > threshold) {
+                verdict = "improved";
+            }
+            table.add(row(n, number(o.score), number(n.score), String.format(Locale.ROOT, "%+.1f%%", change), verdict));
+        }
+        for (Map.Entry<String, Score> e : before.entrySet()) {
+            if (!after.containsKey(e.getKey())) table.add(row(e.getValue(), number(e.getValue().score), "", "", "not run"));
+        }
+        print(table);
+        System.out.printf(Locale.ROOT, "%n%d of %d benchmarks regressed by more than %.1f%%%n",
+                regressions, after.size(), threshold);
+        return regressions > 0 ? 1 : 0;
+    }
+
+    private static double margin(Score s) {
+        return Double.isNaN(s.error) ? 0.0 : s.error;
+    }
+
+    private static String[] row(Score s, String baseline, String now, String change, String verdict) {
+        String name = s.name.startsWith("bench.") ? s.name.substring("bench.".length()) : s.name;
+        return new String[] {name, s.params, s.mode, s.unit, baseline, now, change, verdict};
+    }
+
+    private static String number(double v) {
+        return String.format(Locale.ROOT, v >= 100 ? "%.1f" : v >= 1 ? "%.3f" : "%.5f", v);
+    }
+
+    private static void print(List<String[]> table) {
+        int[] width = new int[table.get(0).length];
+        for (String[] r : table) {
+            for (int c = 0; c < r.length; c++) width[c] = Math.max(width[c], r[c].length());
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String[] r : table) {
+            sb.setLength(0);
+            for (int c = 0; c < r.length; c++) {
+                boolean right = c >= 4 && c <= 6;
+                String pad = " ".repeat(width[c] - r[c].length());
+                sb.append(right ? pad + r[c] : r[c] + pad).append("  ");
+            }
+            System.out.println(sb.toString().stripTrailing());
+        }
+    }
+
+    /** Primary results of a JMH CSV file, keyed by name, mode, threads and parameters. */
+    static Map<String, Score> read(String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        if (lines.isEmpty()) throw new IOException(file + " is empty");
+        List<String> header = split(lines.get(0));
+        int name = column(header, "Benchmark", file), mode = column(header, "Mode", file);
+        int threads = column(header, "Threads", file), score = column(header, "Score", file);
+        int error = column(header, "Score Error (99.9%)", file), unit = column(header, "Unit", file);
+
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (int i = 1; i < lines.size(); i++) {
+            if (lines.get(i).isEmpty()) continue;
+            List<String> f = split(lines.get(i));
+            if (f.get(name).contains(":")) continue;
+            StringBuilder params = new StringBuilder();
+            for (int c = 0; c < header.size() && c < f.size(); c++) {
+                if (!header.get(c).startsWith("Param: ") || f.get(c).isEmpty()) continue;
+                if (params.length() > 0) params.append(' ');
+                params.append(header.get(c).substring("Param: ".length())).append('=').append(f.get(c));
+            }
+            Score s = new Score(f.get(name), f.get(mode), params.toString(), parse(f.get(score)),
+                    parse(f.get(error)), f.get(unit));
+            scores.put(s.name + ' ' + s.mode + ' ' + f.get(threads) + ' ' + s.params, s);
+        }
+        return scores;
+    }
+
+    private static int column(List<String> header, String title, String file) throws IOException {
+        int c = header.indexOf(title);
+        if (c < 0) throw new IOException(file + " is not a JMH CSV result file (no \"" + title + "\" column)");
+        return c;
+    }
+
+    private static double parse(String s) {
+        return s.isEmpty() || s.equals("NaN") ? Double.NaN : Double.parseDouble(s);
+    }
+
+    // One CSV line; fields may be quoted, with "" for a quote
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder f = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') f.append(c);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"') f.append(line.charAt(++i));
+                else quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(f.toString());
+                f.setLength(0);
+            } else {
+                f.append(c);
+            }
+        }
+        fields.add(f.toString());
+        return fields;
+    }
+}
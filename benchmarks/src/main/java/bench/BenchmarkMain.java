@@ -0,0 +1,34 @@
+/* BenchmarkMain.java
+ *
+ * Entry point of benchmarks.jar.
+ *
+ *   java -jar benchmarks.jar [JMH options]            run, results to results.csv
+ *   java -jar benchmarks.jar compare old.csv new.csv  compare two result files
+ *
+ * A run is plain JMH (org.openjdk.jmh.Main, so -h, -l, -p, -f ... all work), except
+ * that the results are always written, as CSV unless -rf says otherwise and to
+ * results.csv unless -rff names another file. Keep those files (e.g. under
+ * baselines/) to compare versions; compare reads the CSV format.
+ */
+package bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class BenchmarkMain {
+
+    static final String DEFAULT_RESULTS = "results.csv";
+
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("compare")) {
+            System.exit(BaselineCompare.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        List<String> jmh = new ArrayList<>(Arrays.asList(args));
+        if (!jmh.contains("-rf")) jmh.addAll(Arrays.asList("-rf", "csv"));
+        if (!jmh.contains("-rff")) jmh.addAll(Arrays.asList("-rff", DEFAULT_RESULTS));
+        org.openjdk.jmh.Main.main(jmh.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,99 @@
+/* GradeBenchmark.java
+ *
+ * The prelim calculator's grade math (PrelimLabCalculator.onCalculate) per student:
+ *
+ * - compute / computeFormula: GradeEngine with the fixed weights and with the
+ *   compiled GradingFormula (the built-in one, same numbers)
+ * - report: the whole Calculate button minus Swing, GradeReport.append into a reused
+ *   StringBuilder and the String shown in the results area
+ * - batch / batchFormula: a class of BATCH students graded as columns
+ *
+ * Scores are per student.
+ */
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GradeBenchmark {
+
+    static final int STUDENTS = 1024;
+    static final int BATCH = 100_000;
+
+    GradingFormula formula;
+    GradeEngine.Batch students;
+    GradeEngine.Batch batch;
+    StringBuilder out;
+
+    @Setup
+    public void setup() {
+        formula = GradingFormula.DEFAULT;
+        students = SyntheticData.grades(STUDENTS);
+        batch = SyntheticData.grades(BATCH);
+        out = new StringBuilder(512);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STUDENTS)
+    public void compute(Blackhole bh) {
+        GradeEngine.Batch s = students;
+        for (int i = 0; i < STUDENTS; i++) {
+            bh.consume(GradeEngine.compute(s.totalWeeks[i], s.late[i], s.missedBefore[i], s.absences[i],
+                    s.hasExcuse[i], s.lab1[i], s.lab2[i], s.lab3[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STUDENTS)
+    public void computeFormula(Blackhole bh) {
+        GradeEngine.Batch s = students;
+        for (int i = 0; i < STUDENTS; i++) {
+            bh.consume(GradeEngine.compute(formula, s.totalWeeks[i], s.late[i], s.missedBefore[i], s.absences[i],
+                    s.hasExcuse[i], s.lab1[i], s.lab2[i], s.lab3[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STUDENTS)
+    public void report(Blackhole bh) {
+        GradeEngine.Batch s = students;
+        for (int i = 0; i < STUDENTS; i++) {
+            out.setLength(0);
+            bh.consume(GradeReport.append(out, formula, s.totalWeeks[i], s.late[i], s.missedBefore[i], s.absences[i],
+                    s.hasExcuse[i], s.lab1[i], s.lab2[i], s.lab3[i]));
+            bh.consume(out.toString());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public GradeEngine.Batch batch() {
+        GradeEngine.compute(batch);
+        return batch;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public GradeEngine.Batch batchFormula() {
+        GradeEngine.compute(formula, batch);
+        return batch;
+    }
+}
@@ -0,0 +1,76 @@
+/* LegacyStudentParser.java
+ *
+ * The roster parsing StudentRecords used before the byte-level StudentCsvReader:
+ * loadCSVFromReader, parseAndAddLine, computeAverage and isNumeric as they were,
+ * with model.addRow replaced by a callback. isNumeric answers "no" by catching the
+ * NumberFormatException of Double.parseDouble, and computeAverage compiles a regex
+ * for every field. Kept only so the benchmarks can compare the two.
+ */
+package bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+final class LegacyStudentParser {
+
+    interface RowSink {
+        void addRow(String id, String name, String grade);
+    }
+
+    static void loadCSVFromReader(BufferedReader reader, RowSink model) throws IOException {
+        String first = reader.readLine();
+        if (first == null) return;
+        boolean hasHeader = first.toLowerCase().contains("studentid") || first.toLowerCase().contains("first_name");
+        if (!hasHeader) parseAndAddLine(first, model);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.trim().isEmpty()) parseAndAddLine(line, model);
+        }
+    }
+
+    static void parseAndAddLine(String line, RowSink model) {
+        String[] parts = line.split(",", -1);
+        for (int i = 0; i < parts.length; i++) parts[i] = parts[i].trim().replaceAll("^\"|\"$", "");
+        if (parts.length == 0) return;
+        String id = parts[0];
+        String name = "";
+        String grade = "";
+        if (parts.length == 2) name = parts[1];
+        else if (parts.length == 3) {
+            if (isNumeric(parts[2])) { name = parts[1]; grade = parts[2]; }
+            else name = parts[1] + " " + parts[2];
+        } else if (parts.length >= 4) {
+            if (!isNumeric(parts[1]) && !isNumeric(parts[2])) {
+                name = parts[1] + " " + parts[2];
+                grade = computeAverage(parts, 3);
+            } else {
+                name = parts[1];
+                grade = computeAverage(parts, 2);
+            }
+        }
+        model.addRow(id, name, grade);
+    }
+
+    static String computeAverage(String[] parts, int start) {
+        double sum = 0;
+        int count = 0;
+        for (int i = start; i < parts.length; i++) {
+            String p = parts[i].replaceAll("[^0-9\\.\\-]", "");
+            if (p.isEmpty()) continue;
+            try {
+                double v = Double.parseDouble(p);
+                sum += v;
+                count++;
+            } catch (NumberFormatException ignored) {}
+        }
+        if (count == 0) return "";
+        return String.valueOf(Math.round(sum / count));
+    }
+
+    static boolean isNumeric(String s) {
+        if (s == null || s.trim().isEmpty()) return false;
+        try { Double.parseDouble(s); return true; } catch (Exception e) { return false; }
+    }
+
+    private LegacyStudentParser() {}
+}
@@ -0,0 +1,100 @@
+/* LoadBenchmark.java
+ *
+ * A whole roster load, from file to table model, for a MOCK_DATA-shaped file of
+ * 10K, 1M and 10M rows (SyntheticData.roster). Score is the time for one load.
+ *
+ * - sequentialLoad: StudentCsvReader into batches of 1,000 rows appended to a
+ *   StudentTableModel, as StudentRecords' load worker does (minus the event thread)
+ * - parallelLoad: ParallelCsvLoader's chunks appended to a StudentTableModel
+ * - legacyLoad: the old BufferedReader + parseAndAddLine loop; rows are only
+ *   consumed, not stored, as the old DefaultTableModel would not hold 10M rows
+ *
+ * The 10M-row file is about 400 MB; the forks get -Xmx3g. Pick sizes with -p rows=...
+ */
+package bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class LoadBenchmark {
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    @Param({"10000", "1000000", "10000000"})
+    int rows;
+
+    File roster;
+
+    @Setup
+    public void setup() throws IOException {
+        roster = SyntheticData.roster(rows);
+    }
+
+    @Benchmark
+    public StudentTableModel sequentialLoad() throws IOException {
+        StudentTableModel model = new StudentTableModel();
+        new StudentCsvReader().read(roster, new StudentCsvReader.RowHandler() {
+            private StudentTableModel.Columns batch = new StudentTableModel.Columns(LOAD_BATCH_SIZE);
+
+            @Override
+            public void row(String id, String name, double grade) {
+                batch.add(id, name, (float) grade);
+                if (batch.size() == LOAD_BATCH_SIZE) flush();
+            }
+
+            @Override
+            public boolean progress(long position, long size) {
+                if (position == size) flush();
+                return true;
+            }
+
+            private void flush() {
+                model.appendAll(Collections.singletonList(batch));
+                batch = new StudentTableModel.Columns(LOAD_BATCH_SIZE);
+            }
+        });
+        return model;
+    }
+
+    @Benchmark
+    public StudentTableModel parallelLoad() throws IOException {
+        StudentTableModel model = new StudentTableModel();
+        new ParallelCsvLoader().load(roster, (chunk, end, size) -> model.appendAll(Collections.singletonList(chunk)),
+                () -> false);
+        return model;
+    }
+
+    @Benchmark
+    public void legacyLoad(Blackhole bh) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(roster), StandardCharsets.UTF_8))) {
+            LegacyStudentParser.loadCSVFromReader(reader,
+                    (id, name, grade) -> { bh.consume(id); bh.consume(name); bh.consume(grade); });
+        }
+    }
+}
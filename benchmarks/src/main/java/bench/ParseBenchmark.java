@@ -0,0 +1,113 @@
+/* ParseBenchmark.java
+ *
+ * Per-line cost of reading a roster, old against new:
+ *
+ * - legacyParseAndAddLine: StudentRecords' old String.split / regex / Double.parseDouble
+ *   parser (LegacyStudentParser)
+ * - readerParse: StudentCsvReader scanning the same lines in a buffer
+ *
+ * both for each Shape; FIRST_LAST lines take the failing numeric check on every line
+ * (an exception in the old parser). The field-level parts of the old parser,
+ * isNumeric on a number and on a name, and computeAverage over MOCK_DATA's five
+ * scores, are measured on their own. Scores are per line or per field.
+ */
+package bench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+
+    static final int LINES = 1024;
+
+    @State(Scope.Thread)
+    public static class Lines {
+        @Param({"MOCK_DATA", "NAME_GRADE", "FIRST_LAST"})
+        SyntheticData.Shape shape;
+
+        String[] lines;
+        ByteBuffer buffer;
+        StudentCsvReader reader;
+
+        @Setup
+        public void setup() {
+            lines = SyntheticData.lines(shape, LINES);
+            buffer = ByteBuffer.wrap(SyntheticData.bytes(lines));
+            reader = new StudentCsvReader();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Fields {
+        String[] numbers;
+        String[] names;
+        String[][] mockDataParts;
+
+        @Setup
+        public void setup() {
+            String[] lines = SyntheticData.lines(SyntheticData.Shape.MOCK_DATA, LINES);
+            numbers = new String[LINES];
+            names = new String[LINES];
+            mockDataParts = new String[LINES][];
+            for (int i = 0; i < LINES; i++) {
+                String[] parts = lines[i].split(",", -1);
+                mockDataParts[i] = parts;
+                numbers[i] = parts[3 + i % 5];
+                names[i] = parts[1 + i % 2];
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void legacyParseAndAddLine(Lines s, Blackhole bh) {
+        LegacyStudentParser.RowSink sink = (id, name, grade) -> { bh.consume(id); bh.consume(name); bh.consume(grade); };
+        for (String line : s.lines) LegacyStudentParser.parseAndAddLine(line, sink);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int readerParse(Lines s, Blackhole bh) {
+        ByteBuffer buf = s.buffer;
+        return s.reader.parse(buf, 0, buf.limit(), false,
+                (id, name, grade) -> { bh.consume(id); bh.consume(name); bh.consume(grade); });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void legacyIsNumericNumber(Fields s, Blackhole bh) {
+        for (String field : s.numbers) bh.consume(LegacyStudentParser.isNumeric(field));
+    }
+
+    /** The failure path: every call throws and catches a NumberFormatException. */
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void legacyIsNumericName(Fields s, Blackhole bh) {
+        for (String field : s.names) bh.consume(LegacyStudentParser.isNumeric(field));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void legacyComputeAverage(Fields s, Blackhole bh) {
+        for (String[] parts : s.mockDataParts) bh.consume(LegacyStudentParser.computeAverage(parts, 3));
+    }
+}
@@ -0,0 +1,158 @@
+/* SyntheticData.java
+ *
+ * Reproducible inputs for the benchmarks; the same seed always gives the same data,
+ * so two versions of the programs are measured on identical input.
+ *
+ * - roster(rows): a CSV shaped like Prelim-Exam/Java/MOCK_DATA.csv (same header,
+ *   9-digit IDs, first and last names, five scores 0 - 100), written once to
+ *   <java.io.tmpdir>/prog2-bench and reused by later runs and forks
+ * - lines(shape, n): roster lines of one of the column layouts StudentRecords accepts
+ * - grades(n): calculator inputs (weeks, late enrollment, absences, excuse, labs)
+ * - attendance(n): check-ins as the Attendance Tracker's Save button writes them
+ */
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+public final class SyntheticData {
+
+    public static final long SEED = 0x25_0909_131L;
+    public static final String ROSTER_HEADER =
+            "StudentID,first_name,last_name,LAB WORK 1,LAB WORK 2,LAB WORK 3,PRELIM EXAM,ATTENDANCE GRADE";
+
+    private static final String[] FIRST = {
+            "Osbourne", "Albie", "Marietta", "Jurrien", "Bernadina", "Wynn", "Celestyna", "Rhett",
+            "Ange", "Tobit", "Kaleena", "Gus", "Ofelia", "Dominick", "Lyda", "Emlen"
+    };
+    private static final String[] LAST = {
+            "Wakenshaw", "Gierardi", "Dellatorre", "Julianda", "O'Hagerty", "Pennycord", "Bleasby", "Fitzsimons",
+            "Mc Kerley", "Tuplin", "Grishakov", "Ansley", "Van der Velde", "Korb", "Ebbutt", "Stanlock"
+    };
+    private static final String[] COURSES = {
+            "BSIT 1", "BSIT 2", "BSCS 1", "BSCS 2", "BSEMC 1", "BSIS 3", "BSIT 3", "BSCS 4"
+    };
+
+    /** Column layouts of a roster line (see StudentCsvReader). */
+    public enum Shape {
+        /** ID, first, last, five scores: the MOCK_DATA.csv layout, averaged into the grade. */
+        MOCK_DATA,
+        /** ID, name, grade. */
+        NAME_GRADE,
+        /** ID, first, last: the third field is not a number, so the numeric check fails. */
+        FIRST_LAST
+    }
+
+    private SyntheticData() {}
+
+    /** A MOCK_DATA-shaped roster with this many rows, generated on first use. */
+    public static File roster(int rows) throws IOException {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "prog2-bench");
+        File file = new File(dir, "roster-" + rows + ".csv");
+        if (file.isFile()) return file;
+        Files.createDirectories(dir.toPath());
+        File tmp = File.createTempFile("roster-", ".tmp", dir);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8),
+                1 << 16)) {
+            out.write(ROSTER_HEADER);
+            out.write('\n');
+            SplittableRandom random = new SplittableRandom(SEED);
+            StringBuilder line = new StringBuilder(64);
+            for (int i = 0; i < rows; i++) {
+                line.setLength(0);
+                appendLine(line, Shape.MOCK_DATA, random);
+                out.append(line).write('\n');
+            }
+        } catch (IOException ex) {
+            Files.deleteIfExists(tmp.toPath());
+            throw ex;
+        }
+        // another fork may have written it meanwhile; both copies are identical
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    /** n roster lines of one shape, without the header or line ends. */
+    public static String[] lines(Shape shape, int n) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        String[] lines = new String[n];
+        StringBuilder line = new StringBuilder(64);
+        for (int i = 0; i < n; i++) {
+            line.setLength(0);
+            appendLine(line, shape, random);
+            lines[i] = line.toString();
+        }
+        return lines;
+    }
+
+    /** The lines joined with '\n', as bytes, the way they sit in a mapped file. */
+    public static byte[] bytes(String[] lines) {
+        return (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendLine(StringBuilder sb, Shape shape, SplittableRandom random) {
+        String id = Integer.toString(random.nextInt(1_000_000_000));
+        for (int pad = id.length(); pad < 9; pad++) sb.append('0');
+        sb.append(id).append(',');
+        String first = FIRST[random.nextInt(FIRST.length)], last = LAST[random.nextInt(LAST.length)];
+        switch (shape) {
+            case MOCK_DATA:
+                sb.append(first).append(',').append(last);
+                for (int i = 0; i < 5; i++) sb.append(',').append(random.nextInt(101));
+                break;
+            case NAME_GRADE:
+                sb.append(first).append(' ').append(last).append(',').append(random.nextInt(6001) / 100.0 + 40);
+                break;
+            case FIRST_LAST:
+                sb.append(first).append(',').append(last);
+                break;
+        }
+    }
+
+    /** Calculator inputs for n students, as columns; labs are in steps of 0.5. */
+    public static GradeEngine.Batch grades(int n) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        GradeEngine.Batch b = new GradeEngine.Batch(n);
+        for (int i = 0; i < n; i++) {
+            b.totalWeeks[i] = 10 + random.nextInt(9);
+            b.late[i] = random.nextInt(5) == 0;
+            b.missedBefore[i] = b.late[i] ? 1 + random.nextInt(3) : 0;
+            int counted = b.late[i] ? b.totalWeeks[i] - b.missedBefore[i] : b.totalWeeks[i];
+            b.absences[i] = Math.min(counted, random.nextInt(6));
+            b.hasExcuse[i] = random.nextInt(4) == 0;
+            b.lab1[i] = random.nextInt(201) / 2.0;
+            b.lab2[i] = random.nextInt(201) / 2.0;
+            b.lab3[i] = random.nextInt(201) / 2.0;
+        }
+        return b;
+    }
+
+    /**
+     * n check-ins spread over one school day (so the log never starts a new daily
+     * segment), with distinct but not seeded signatures.
+     */
+    public static AttendanceRecord[] attendance(int n) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        SignatureGenerator signatures = new SignatureGenerator();
+        long start = LocalDate.of(2025, 10, 17).atTime(7, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long step = TimeUnit.HOURS.toMillis(12) / Math.max(1, n);
+        AttendanceRecord[] records = new AttendanceRecord[n];
+        for (int i = 0; i < n; i++) {
+            String name = FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)];
+            records[i] = new AttendanceRecord(name, COURSES[random.nextInt(COURSES.length)], start + i * step,
+                    signatures.next());
+        }
+        return records;
+    }
+}